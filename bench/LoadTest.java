@@ -0,0 +1,430 @@
+// bench/LoadTest.java
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 端到端 HTTP 压测：按固定比例混合执行单文件上传、批量上传、完整下载、Range 下载、分页列表和删除。
+ * <p>
+ * 每个工作线程使用由 --seed 派生的随机数生成器选择操作、文件和 Range，文件内容也由种子决定，
+ * 相同参数下各次运行的请求序列一致，可用于比较不同版本或配置（例如 server.tomcat.threads.max）。
+ * 预热阶段（--warmup 秒）的请求不计入结果。
+ * <p>
+ * 运行（不需要编译）：
+ * <pre>
+ * java bench/LoadTest.java --url http://localhost:8080 --duration 60 --concurrency 32 \
+ *     --mix upload=10,batch=5,download=40,range=20,list=20,delete=5 --out result.json
+ * </pre>
+ * 结果（JSON）包含每种操作的请求数、错误数与错误率、吞吐量、字节数与每秒字节数、延迟 p50/p90/p99/p999/max；
+ * 一般通过 bench/run-load-test.sh 运行，由脚本启动应用。
+ */
+public class LoadTest {
+
+    private static final String[] OPERATIONS = {"upload", "batch", "download", "range", "list", "delete"};
+    private static final String[] EXTENSIONS = {"txt", "pdf", "png", "zip"};
+    private static final String BOUNDARY = "loadtestboundary";
+    private static final Pattern DOWNLOAD_URL = Pattern.compile("\"downloadUrl\":\"/api/v1/files/download/([^\"]+)\"");
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\":\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(option(args, "--url", "http://localhost:8080"));
+        int durationSeconds = Integer.parseInt(option(args, "--duration", "60"));
+        int warmupSeconds = Integer.parseInt(option(args, "--warmup", "10"));
+        int concurrency = Integer.parseInt(option(args, "--concurrency", "32"));
+        long seed = Long.parseLong(option(args, "--seed", "42"));
+        int fileSize = Integer.parseInt(option(args, "--file-size", "65536"));
+        int batchSize = Integer.parseInt(option(args, "--batch-size", "5"));
+        int preload = Integer.parseInt(option(args, "--preload", "200"));
+        int pageSize = Integer.parseInt(option(args, "--page-size", "50"));
+        int[] weights = parseMix(option(args, "--mix", "upload=10,batch=5,download=40,range=20,list=20,delete=5"));
+        String label = option(args, "--label", "default");
+        Path out = Paths.get(option(args, "--out", "load-test-result.json"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, concurrency / 4)))
+                .build();
+        Workload workload = new Workload(client, base, fileSize, batchSize, pageSize);
+
+        // 预置一批文件供下载、Range、删除使用
+        Random preloadRandom = new Random(seed);
+        for (int i = 0; i < preload; i++) {
+            workload.upload(preloadRandom, null);
+        }
+        System.out.println("预置文件: " + workload.pool.size());
+
+        Stats[] stats = new Stats[OPERATIONS.length];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
+        }
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        int totalWeight = Arrays.stream(weights).sum();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            Random random = new Random(seed * 31 + w + 1);
+            futures.add(workers.submit(() -> {
+                while (System.nanoTime() < end) {
+                    int operation = pick(weights, random.nextInt(totalWeight));
+                    long begin = System.nanoTime();
+                    long bytes;
+                    boolean ok;
+                    try {
+                        bytes = workload.run(operation, random);
+                        ok = bytes >= 0;
+                    } catch (IOException e) {
+                        bytes = 0;
+                        ok = false;
+                    }
+                    if (begin >= measureFrom) {
+                        stats[operation].record(System.nanoTime() - begin, Math.max(0, bytes), ok);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        workers.shutdown();
+
+        String json = toJson(label, concurrency, durationSeconds, seed, fileSize, stats);
+        Files.writeString(out, json + System.lineSeparator(), StandardCharsets.UTF_8);
+        try (PrintWriter writer = new PrintWriter(System.out)) {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                Stats s = stats[i];
+                writer.printf("%-9s 请求 %7d  错误 %5d  %9.1f req/s  p50 %7.2f ms  p99 %8.2f ms  %8.2f MB/s%n",
+                        OPERATIONS[i], s.count(), s.errors, s.count() / (double) durationSeconds,
+                        s.percentileMillis(50), s.percentileMillis(99),
+                        s.bytes / (double) durationSeconds / (1024 * 1024));
+            }
+            writer.println("结果已写入 " + out.toAbsolutePath());
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 各操作的请求实现，返回传输的字节数（上传为请求体、下载为响应体），失败返回 -1
+     */
+    private static final class Workload {
+
+        private final HttpClient client;
+        private final URI base;
+        private final int fileSize;
+        private final int batchSize;
+        private final int pageSize;
+        // 已上传且未删除的文件名
+        private final List<String> pool = new ArrayList<>();
+
+        Workload(HttpClient client, URI base, int fileSize, int batchSize, int pageSize) {
+            this.client = client;
+            this.base = base;
+            this.fileSize = fileSize;
+            this.batchSize = batchSize;
+            this.pageSize = pageSize;
+        }
+
+        long run(int operation, Random random) throws IOException {
+            switch (OPERATIONS[operation]) {
+                case "upload":
+                    return upload(random, null);
+                case "batch":
+                    return upload(random, batchSize);
+                case "download":
+                    return download(random, false);
+                case "range":
+                    return download(random, true);
+                case "list":
+                    return list(random);
+                default:
+                    return delete(random);
+            }
+        }
+
+        long upload(Random random, Integer count) throws IOException {
+            int files = count != null ? count : 1;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            long payload = 0;
+            for (int i = 0; i < files; i++) {
+                byte[] content = new byte[Math.max(1, fileSize / 2 + random.nextInt(fileSize))];
+                random.nextBytes(content);
+                String name = "load-" + Long.toHexString(random.nextLong() & Long.MAX_VALUE) + "."
+                        + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+                String part = "--" + BOUNDARY + "\r\n"
+                        + "Content-Disposition: form-data; name=\"" + (count != null ? "files" : "file")
+                        + "\"; filename=\"" + name + "\"\r\n"
+                        + "Content-Type: application/octet-stream\r\n\r\n";
+                body.write(part.getBytes(StandardCharsets.UTF_8));
+                body.write(content);
+                body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+                payload += content.length;
+            }
+            body.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+            String path = count != null ? "/api/v1/files/upload/batch" : "/api/v1/files/upload";
+            HttpResponse<String> response = send(HttpRequest.newBuilder(base.resolve(path + "?uploadUser=loadtest"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            Matcher matcher = DOWNLOAD_URL.matcher(response.body());
+            int stored = 0;
+            synchronized (pool) {
+                while (matcher.find()) {
+                    pool.add(matcher.group(1));
+                    stored++;
+                }
+            }
+            return stored == files ? payload : -1;
+        }
+
+        long download(Random random, boolean range) throws IOException {
+            String fileName = pick(random);
+            if (fileName == null) {
+                return 0;
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve("/api/v1/files/download/" + fileName));
+            if (range) {
+                int first = random.nextInt(Math.max(1, fileSize / 2));
+                request.header("Range", "bytes=" + first + "-" + (first + random.nextInt(8192)));
+            }
+            HttpResponse<InputStream> response = send(request.GET(), HttpResponse.BodyHandlers.ofInputStream());
+            long bytes = drain(response.body());
+            int expected = range ? 206 : 200;
+            // 文件可能刚被其他线程删除
+            if (response.statusCode() == 404) {
+                return 0;
+            }
+            return response.statusCode() == expected ? bytes : -1;
+        }
+
+        long list(Random random) throws IOException {
+            String sort = new String[]{"time", "size", "name"}[random.nextInt(3)];
+            String cursor = null;
+            long bytes = 0;
+            // 从第一页开始，最多翻 3 页
+            for (int page = 0; page < 1 + random.nextInt(3); page++) {
+                String query = "/api/v1/files?sort=" + sort + "&size=" + pageSize
+                        + (cursor != null ? "&cursor=" + cursor : "");
+                HttpResponse<String> response = send(HttpRequest.newBuilder(base.resolve(query)).GET(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return -1;
+                }
+                bytes += response.body().length();
+                Matcher matcher = NEXT_CURSOR.matcher(response.body());
+                if (!matcher.find()) {
+                    break;
+                }
+                cursor = URLEncoder.encode(matcher.group(1), StandardCharsets.UTF_8);
+            }
+            return bytes;
+        }
+
+        long delete(Random random) throws IOException {
+            String fileName;
+            synchronized (pool) {
+                // 保留一部分文件供下载使用
+                if (pool.size() <= 20) {
+                    return 0;
+                }
+                int index = random.nextInt(pool.size());
+                fileName = pool.set(index, pool.get(pool.size() - 1));
+                pool.remove(pool.size() - 1);
+            }
+            HttpResponse<String> response = send(HttpRequest.newBuilder(base.resolve("/api/v1/files/" + fileName))
+                    .DELETE(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? 0 : -1;
+        }
+
+        private String pick(Random random) {
+            synchronized (pool) {
+                return pool.isEmpty() ? null : pool.get(random.nextInt(pool.size()));
+            }
+        }
+
+        private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+                throws IOException {
+            try {
+                return client.send(request.timeout(Duration.ofSeconds(30)).build(), handler);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        private static long drain(InputStream input) throws IOException {
+            byte[] buffer = new byte[16 * 1024];
+            long total = 0;
+            try (input) {
+                for (int read; (read = input.read(buffer)) != -1; ) {
+                    total += read;
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * 单个操作的统计：延迟按对数分桶（约 1% 精度），不保存每个样本
+     */
+    private static final class Stats {
+
+        // 1 微秒到约 1000 秒
+        private static final int BUCKETS = 2100;
+        private static final double BASE = 1.01;
+
+        private final long[] histogram = new long[BUCKETS];
+        private long errors;
+        private long bytes;
+        private long maxNanos;
+
+        synchronized void record(long nanos, long transferred, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            bytes += transferred;
+            maxNanos = Math.max(maxNanos, nanos);
+            double micros = Math.max(1, nanos / 1000.0);
+            histogram[(int) Math.min(BUCKETS - 1, Math.log(micros) / Math.log(BASE))]++;
+        }
+
+        synchronized long count() {
+            long count = 0;
+            for (long bucket : histogram) {
+                count += bucket;
+            }
+            return count;
+        }
+
+        synchronized double percentileMillis(double percentile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= rank) {
+                    return Math.min(Math.pow(BASE, i + 1) / 1000.0, maxNanos / 1e6);
+                }
+            }
+            return maxNanos / 1e6;
+        }
+    }
+
+    private static String toJson(String label, int concurrency, int durationSeconds, long seed, int fileSize,
+                                 Stats[] stats) {
+        StringBuilder json = new StringBuilder();
+        json.append('{')
+                .append("\"label\":\"").append(label.replace("\"", "'")).append("\",")
+                .append("\"concurrency\":").append(concurrency).append(',')
+                .append("\"durationSeconds\":").append(durationSeconds).append(',')
+                .append("\"seed\":").append(seed).append(',')
+                .append("\"fileSize\":").append(fileSize).append(',')
+                .append("\"operations\":{");
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            Stats s = stats[i];
+            long count = s.count();
+            totalRequests += count;
+            totalErrors += s.errors;
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("requests", count);
+            fields.put("errors", s.errors);
+            fields.put("errorRate", count > 0 ? s.errors / (double) count : 0);
+            fields.put("throughputPerSecond", count / (double) durationSeconds);
+            fields.put("bytes", s.bytes);
+            fields.put("bytesPerSecond", s.bytes / (double) durationSeconds);
+            fields.put("p50Ms", s.percentileMillis(50));
+            fields.put("p90Ms", s.percentileMillis(90));
+            fields.put("p99Ms", s.percentileMillis(99));
+            fields.put("p999Ms", s.percentileMillis(99.9));
+            fields.put("maxMs", s.maxNanos / 1e6);
+            json.append(i > 0 ? "," : "").append('"').append(OPERATIONS[i]).append("\":{");
+            int n = 0;
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                json.append(n++ > 0 ? "," : "").append('"').append(field.getKey()).append("\":")
+                        .append(formatNumber(field.getValue()));
+            }
+            json.append('}');
+        }
+        json.append("},")
+                .append("\"totalRequests\":").append(totalRequests).append(',')
+                .append("\"totalErrors\":").append(totalErrors).append(',')
+                .append("\"throughputPerSecond\":").append(formatNumber(totalRequests / (double) durationSeconds))
+                .append('}');
+        return json.toString();
+    }
+
+    private static String formatNumber(Object value) {
+        return value instanceof Double ? String.format(Locale.ROOT, "%.3f", (Double) value) : String.valueOf(value);
+    }
+
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[OPERATIONS.length];
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.split("=");
+            int index = Arrays.asList(OPERATIONS).indexOf(pair[0].trim());
+            if (index < 0 || pair.length != 2) {
+                throw new IllegalArgumentException("未知的操作: " + entry + "，可用: " + String.join(",", OPERATIONS));
+            }
+            weights[index] = Integer.parseInt(pair[1].trim());
+        }
+        if (Arrays.stream(weights).sum() <= 0) {
+            throw new IllegalArgumentException("--mix 的权重之和必须大于 0");
+        }
+        return weights;
+    }
+
+    private static int pick(int[] weights, int value) {
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,156 @@
+// bench/SlowTransferBenchmark.java
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 慢速传输压测：模拟大量慢速上传客户端占住服务端请求线程，同时测量普通请求能否得到及时响应。
+ * <p>
+ * 每个慢速客户端向 /api/v1/files/upload/stream 发送一个声明很大的 multipart 请求体，
+ * 然后以很低的速率持续发送数据，在整个测试期间保持连接；平台线程模式下每个这样的请求占用一个 Tomcat 线程。
+ * 所有慢速客户端建立后，依次发送探测请求（/api/health）并记录成功率和延迟。
+ * <p>
+ * 运行（不需要编译）：
+ * <pre>
+ * java bench/SlowTransferBenchmark.java --url http://localhost:8080 --slow 400 --rate 512 --hold 30 --probes 50
+ * </pre>
+ * 最后一行输出 JSON，便于比较平台线程与虚拟线程两种模式（见 bench/run-slow-transfer-benchmark.sh）。
+ */
+public class SlowTransferBenchmark {
+
+    private static final String BOUNDARY = "slowtransferbenchmark";
+
+    public static void main(String[] args) throws Exception {
+        String url = option(args, "--url", "http://localhost:8080");
+        int slowClients = Integer.parseInt(option(args, "--slow", "400"));
+        int bytesPerSecond = Integer.parseInt(option(args, "--rate", "512"));
+        int holdSeconds = Integer.parseInt(option(args, "--hold", "30"));
+        int probes = Integer.parseInt(option(args, "--probes", "50"));
+        int probeTimeoutMs = Integer.parseInt(option(args, "--probe-timeout-ms", "2000"));
+        String label = option(args, "--label", "unknown");
+
+        URI base = URI.create(url);
+        String host = base.getHost();
+        int port = base.getPort() != -1 ? base.getPort() : 80;
+
+        AtomicInteger connected = new AtomicInteger();
+        AtomicInteger slowErrors = new AtomicInteger();
+        CountDownLatch stop = new CountDownLatch(1);
+        ExecutorService slowPool = Executors.newFixedThreadPool(slowClients);
+
+        for (int i = 0; i < slowClients; i++) {
+            int client = i;
+            slowPool.execute(() -> {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(host, port), 5000);
+                    OutputStream output = socket.getOutputStream();
+                    String preamble = "--" + BOUNDARY + "\r\n"
+                            + "Content-Disposition: form-data; name=\"file\"; filename=\"slow-" + client + ".txt\"\r\n"
+                            + "Content-Type: text/plain\r\n\r\n";
+                    String head = "POST /api/v1/files/upload/stream?uploadUser=bench HTTP/1.1\r\n"
+                            + "Host: " + host + ":" + port + "\r\n"
+                            + "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n"
+                            + "Content-Length: " + (1L << 30) + "\r\n\r\n"
+                            + preamble;
+                    output.write(head.getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                    connected.incrementAndGet();
+
+                    // 以固定速率发送数据直到测试结束，之后直接断开（服务端会丢弃未完成的上传）
+                    byte[] chunk = new byte[Math.max(1, bytesPerSecond / 4)];
+                    Arrays.fill(chunk, (byte) 'x');
+                    while (!stop.await(250, TimeUnit.MILLISECONDS)) {
+                        output.write(chunk);
+                        output.flush();
+                    }
+                } catch (IOException e) {
+                    slowErrors.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // 等待慢速客户端全部建立并开始发送
+        long deadline = System.currentTimeMillis() + 15000;
+        while (connected.get() + slowErrors.get() < slowClients && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(2000);
+        System.out.println("慢速客户端: 已连接 " + connected.get() + " / " + slowClients
+                + ", 连接失败 " + slowErrors.get());
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(probeTimeoutMs)).build();
+        List<Long> latencies = new ArrayList<>();
+        int probeOk = 0;
+        int probeTotal = 0;
+        long probeStart = System.currentTimeMillis();
+        for (int i = 0; i < probes && System.currentTimeMillis() - probeStart < holdSeconds * 1000L; i++) {
+            probeTotal++;
+            long start = System.nanoTime();
+            try {
+                HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(base.resolve("/api/health"))
+                        .timeout(Duration.ofMillis(probeTimeoutMs)).GET().build(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                response.body().readAllBytes();
+                if (response.statusCode() == 200) {
+                    probeOk++;
+                    latencies.add((System.nanoTime() - start) / 1_000_000);
+                }
+            } catch (IOException e) {
+                // 超时计为失败
+            }
+        }
+
+        long remaining = holdSeconds * 1000L - (System.currentTimeMillis() - probeStart);
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+        stop.countDown();
+        slowPool.shutdown();
+        slowPool.awaitTermination(10, TimeUnit.SECONDS);
+
+        Collections.sort(latencies);
+        long p50 = percentile(latencies, 50);
+        long p99 = percentile(latencies, 99);
+        System.out.println("探测请求: 成功 " + probeOk + " / " + probeTotal + ", p50 " + p50 + " ms, p99 " + p99 + " ms");
+        System.out.printf("{\"label\":\"%s\",\"slowClients\":%d,\"slowConnected\":%d,\"slowErrors\":%d,"
+                        + "\"probes\":%d,\"probeOk\":%d,\"p50Ms\":%d,\"p99Ms\":%d}%n",
+                label, slowClients, connected.get(), slowErrors.get(), probeTotal, probeOk, p50, p99);
+    }
+
+    private static long percentile(List<Long> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+}
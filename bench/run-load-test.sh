@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# 启动应用（随机端口、临时存储目录）并运行混合负载压测，结果写入 JSON 文件。
+#
+# 用法: bench/run-load-test.sh [标签, 默认 default] [LoadTest 参数...]
+# 应用参数通过 APP_ARGS 传入，例如比较 Tomcat 线程数：
+#   APP_ARGS="--server.tomcat.threads.max=50" bench/run-load-test.sh threads-50 --duration 60
+#   APP_ARGS="--server.tomcat.threads.max=200" bench/run-load-test.sh threads-200 --duration 60
+# 结果: target/load-test/<标签>.json（OUT 可指定其他路径），应用日志在同目录的 <标签>.log
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+LABEL=${1:-default}
+shift || true
+JAR=target/file-manager-1.0.0.jar
+RESULT_DIR=target/load-test
+OUT=${OUT:-$RESULT_DIR/$LABEL.json}
+WORK=$(mktemp -d)
+trap 'kill ${APP_PID:-} 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+[ -f "$JAR" ] || mvn -B -q package -DskipTests
+mkdir -p "$RESULT_DIR" "$(dirname "$OUT")"
+LOG=$RESULT_DIR/$LABEL.log
+
+# server.port=0 由系统分配空闲端口，从启动日志中读取
+# shellcheck disable=SC2086
+java -jar "$JAR" --server.port=0 --file.upload-dir="$WORK/uploads" ${APP_ARGS:-} > "$LOG" 2>&1 &
+APP_PID=$!
+PORT=
+for _ in $(seq 1 120); do
+    PORT=$(sed -n 's/.*Tomcat started on port(s): \([0-9]*\).*/\1/p' "$LOG" | head -1)
+    [ -n "$PORT" ] && break
+    kill -0 "$APP_PID" 2>/dev/null || { echo "应用启动失败，见 $LOG"; exit 1; }
+    sleep 1
+done
+[ -n "$PORT" ] || { echo "等待应用启动超时，见 $LOG"; exit 1; }
+# 等待元数据索引预热完成（readiness 就绪）
+for _ in $(seq 1 600); do
+    curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null && break
+    sleep 1
+done
+echo "应用已启动: http://localhost:$PORT（$LABEL）"
+
+java bench/LoadTest.java --url "http://localhost:$PORT" --label "$LABEL" --out "$OUT" "$@"
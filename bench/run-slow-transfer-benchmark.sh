@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# 对比平台线程池与虚拟线程两种模式下，服务能同时承受多少慢速传输而不影响普通请求。
+#
+# 用法: bench/run-slow-transfer-benchmark.sh [慢速客户端数量, 默认 400]
+# 虚拟线程模式需要 Java 21：设置 JAVA21_HOME 指向 JDK 21，未设置时只运行平台线程模式。
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SLOW=${1:-400}
+PORT=${PORT:-18090}
+JAR=target/file-manager-1.0.0.jar
+WORK=$(mktemp -d)
+trap 'kill ${APP_PID:-} 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+[ -f "$JAR" ] || mvn -B -q package -DskipTests
+
+run_mode() {
+    local label=$1 java_bin=$2
+    shift 2
+    "$java_bin" -jar "$JAR" --server.port="$PORT" --file.upload-dir="$WORK/uploads-$label" \
+        --server.tomcat.threads.max=200 "$@" > "$WORK/$label.log" 2>&1 &
+    APP_PID=$!
+    for _ in $(seq 1 60); do
+        curl -fs "http://localhost:$PORT/api/health" > /dev/null && break
+        sleep 1
+    done
+    "$java_bin" bench/SlowTransferBenchmark.java --url "http://localhost:$PORT" --slow "$SLOW" \
+        --rate 512 --hold 30 --probes 50 --label "$label" | tee -a "$WORK/results.jsonl"
+    kill "$APP_PID"
+    wait "$APP_PID" 2>/dev/null || true
+}
+
+run_mode platform java
+if [ -n "${JAVA21_HOME:-}" ]; then
+    run_mode virtual "$JAVA21_HOME/bin/java" --file.virtual-threads.enabled=true
+else
+    echo "未设置 JAVA21_HOME，跳过虚拟线程模式"
+fi
+
+echo "---"
+grep '^{' "$WORK/results.jsonl"
@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "3.2.0"
     id("io.spring.dependency-management") version "1.1.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.djwsj"
@@ -10,7 +11,8 @@ description = "File Manager Demo"
 
 java {
     toolchain {
-        languageVersion = JavaLanguageVersion.of(17)
+        // ./gradlew build -PjavaVersion=21 面向 Java 21 编译（虚拟线程模式）
+        languageVersion = JavaLanguageVersion.of((findProperty("javaVersion") as String?)?.toInt() ?: 17)
     }
 }
 
@@ -23,6 +25,8 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-thymeleaf")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("io.micrometer:micrometer-registry-prometheus")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
     annotationProcessor("org.projectlombok:lombok")
@@ -34,6 +38,17 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// JMH 基准测试（src/jmh/java）：./gradlew jmh -PjmhIncludes=FileNameBenchmark
+// 加上 -PjmhGc 同时输出 GC 与每次操作的内存分配
+jmh {
+    jmhVersion.set("1.37")
+    jvmArgsPrepend.add("-Djmh.data-dir=${layout.buildDirectory.get()}/jmh-data")
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+    if (hasProperty("jmhGc")) {
+        profilers.add("gc")
+    }
+}
+
 tasks.withType<Jar> {
     archiveFileName.set("file-manager.jar")
 }
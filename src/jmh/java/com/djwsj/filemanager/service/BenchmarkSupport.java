@@ -0,0 +1,88 @@
+// src/jmh/java/com/djwsj/filemanager/service/BenchmarkSupport.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.FileManagerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试的公共准备工作：生成合成的上传目录、启动不带 Web 服务器的应用上下文
+ * <p>
+ * 合成目录保存在 jmh.data-dir（默认 target/jmh-data）下，按文件数量区分，生成一次后重复使用；
+ * 第一次启动时应用扫描目录建立元数据索引，之后直接加载索引文件。
+ */
+final class BenchmarkSupport {
+
+    // 覆盖各个分类，另有不在任何分类中的扩展名
+    static final String[] EXTENSIONS = {
+            "jpg", "png", "pdf", "docx", "txt", "xlsx", "mp4", "mp3", "zip", "exe", "java", "dat"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 返回包含 fileCount 个文件的上传目录，不存在时生成（文件内容为空，文件名与正常上传的格式一致）
+     */
+    static Path prepareUploads(int fileCount) throws IOException {
+        Path dataDir = Paths.get(System.getProperty("jmh.data-dir", "target/jmh-data")).toAbsolutePath();
+        Path uploads = dataDir.resolve("uploads-" + fileCount);
+        Path ready = dataDir.resolve("uploads-" + fileCount + ".ready");
+        if (Files.exists(ready)) {
+            return uploads;
+        }
+
+        deleteRecursively(uploads);
+        Files.createDirectories(uploads);
+        long timestamp = System.currentTimeMillis() - fileCount;
+        for (int i = 0; i < fileCount; i++) {
+            String name = (timestamp + i) + "_" + String.format("%08x", i) + "_file" + i + "."
+                    + EXTENSIONS[i % EXTENSIONS.length];
+            Files.createFile(uploads.resolve(name));
+        }
+        Files.createFile(ready);
+        return uploads;
+    }
+
+    /**
+     * 以给定目录为存储目录启动应用（不启动 Tomcat，日志只输出警告）
+     */
+    static ConfigurableApplicationContext startContext(Path uploads) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(FileManagerApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // 以命令行参数传入，优先于 application.properties
+                .run("--file.upload-dir=" + uploads,
+                        "--logging.level.root=WARN",
+                        "--file.thumbnail.enabled=false");
+        // 索引在后台预热，测量前等待完成
+        if (!context.getBean(IndexWarmupService.class).awaitWarm(Duration.ofMinutes(30))) {
+            throw new IllegalStateException("元数据索引预热超时");
+        }
+        return context;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> entries;
+        try (Stream<Path> stream = Files.walk(path)) {
+            entries = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path entry : entries) {
+            Files.delete(entry);
+        }
+    }
+}
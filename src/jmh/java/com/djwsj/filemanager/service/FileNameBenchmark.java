@@ -0,0 +1,61 @@
+// src/jmh/java/com/djwsj/filemanager/service/FileNameBenchmark.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.enums.FileCategory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次上传都会执行的文件名处理：生成唯一文件名、检查扩展名、按扩展名分类
+ * <p>
+ * 与目录规模无关，使用空的存储目录。输入在几种扩展名之间轮换，避免被 JIT 当作常量优化掉。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileNameBenchmark {
+
+    private static final String[] FILE_NAMES = {
+            "holiday-photo.jpg", "季度报告.pdf", "notes.txt", "build-output.jar", "Main.java", "README"
+    };
+
+    private ConfigurableApplicationContext context;
+    private FileStorageService fileStorageService;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.startContext(BenchmarkSupport.prepareUploads(0));
+        fileStorageService = context.getBean(FileStorageService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String generateUniqueFileName() {
+        return fileStorageService.generateUniqueFileName(FILE_NAMES[next(FILE_NAMES.length)]);
+    }
+
+    @Benchmark
+    public boolean isAllowedExtension() {
+        return fileStorageService.isAllowedExtension(BenchmarkSupport.EXTENSIONS[next(BenchmarkSupport.EXTENSIONS.length)]);
+    }
+
+    @Benchmark
+    public FileCategory fromExtension() {
+        return FileCategory.fromExtension(BenchmarkSupport.EXTENSIONS[next(BenchmarkSupport.EXTENSIONS.length)]);
+    }
+
+    private int next(int length) {
+        index = index + 1 < length ? index + 1 : 0;
+        return index;
+    }
+}
@@ -0,0 +1,102 @@
+// src/jmh/java/com/djwsj/filemanager/service/FileStorageBenchmark.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.entity.FileSearchResult;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件列表、统计与搜索接口在不同目录规模下的耗时
+ * <p>
+ * 每个规模（fileCount）启动一次应用上下文。列表结果的大小与文件数量成正比，
+ * 100 万文件的 getAllFiles 需要较大的堆，因此测试进程使用 -Xmx4g。
+ * 只跑一个规模：-Djmh.args="FileStorageBenchmark -p fileCount=1000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileStorageBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int fileCount;
+
+    private ConfigurableApplicationContext context;
+    private FileStorageService fileStorageService;
+    private FileSearchQuery keywordQuery;
+    private FileSearchQuery shortKeywordQuery;
+    private FileSearchQuery filteredQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkSupport.startContext(BenchmarkSupport.prepareUploads(fileCount));
+        fileStorageService = context.getBean(FileStorageService.class);
+
+        keywordQuery = new FileSearchQuery();
+        keywordQuery.setKeywords("file" + (fileCount / 2));
+        shortKeywordQuery = new FileSearchQuery();
+        shortKeywordQuery.setKeywords("e7");
+        filteredQuery = new FileSearchQuery();
+        filteredQuery.setKeywords("pdf");
+        filteredQuery.setCategory(FileCategory.DOCUMENT);
+        filteredQuery.setMaxSize(1024L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FileInfo> getAllFiles() {
+        return fileStorageService.getAllFiles();
+    }
+
+    @Benchmark
+    public List<FileInfo> getFilesByCategory() {
+        return fileStorageService.getFilesByCategory(FileCategory.DOCUMENT);
+    }
+
+    @Benchmark
+    public Map<FileCategory, Long> getCategoryStatistics() {
+        return fileStorageService.getCategoryStatistics();
+    }
+
+    @Benchmark
+    public Map<String, Object> getStorageInfo() {
+        return fileStorageService.getStorageInfo();
+    }
+
+    /**
+     * 命中少量文件的关键字，由 trigram 索引取候选
+     */
+    @Benchmark
+    public FileSearchResult searchKeyword() {
+        return fileStorageService.searchFiles(keywordQuery, 0, 20);
+    }
+
+    /**
+     * 不足三个字符的关键字，遍历全部记录
+     */
+    @Benchmark
+    public FileSearchResult searchShortKeyword() {
+        return fileStorageService.searchFiles(shortKeywordQuery, 0, 20);
+    }
+
+    /**
+     * 命中大量文件（所有 pdf）再按分类和大小过滤、排序取第一页
+     */
+    @Benchmark
+    public FileSearchResult searchWithFilters() {
+        return fileStorageService.searchFiles(filteredQuery, 0, 20);
+    }
+}
@@ -2,8 +2,10 @@ package com.djwsj.filemanager;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FileManagerApplication {
     public static void main(String[] args) {
         SpringApplication.run(FileManagerApplication.class, args);
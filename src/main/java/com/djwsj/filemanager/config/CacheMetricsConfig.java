@@ -0,0 +1,20 @@
+// src/main/java/com/djwsj/filemanager/config/CacheMetricsConfig.java
+package com.djwsj.filemanager.config;
+
+import com.djwsj.filemanager.service.FileStorageService;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 将文件信息缓存的命中、未命中、淘汰次数等指标注册到 Actuator（/actuator/metrics/cache.*，cache=fileInfo）
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder fileInfoCacheMetrics(FileStorageService fileStorageService) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, fileStorageService.getFileInfoCache(), "fileInfo");
+    }
+}
@@ -0,0 +1,31 @@
+// src/main/java/com/djwsj/filemanager/config/IndexWarmupHealthIndicator.java
+package com.djwsj.filemanager.config;
+
+import com.djwsj.filemanager.service.IndexWarmupService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动预热进度（/actuator/health 中的 indexWarmup）
+ * 预热完成前为 STARTING，预热失败等待重试时为 OUT_OF_SERVICE，加入 readiness 组后预热成功前不接收流量
+ */
+@Component
+public class IndexWarmupHealthIndicator implements HealthIndicator {
+
+    public static final Status STARTING = new Status("STARTING", "元数据索引预热中");
+
+    private final IndexWarmupService warmupService;
+
+    public IndexWarmupHealthIndicator(IndexWarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmupService.isWarm() ? Health.up()
+                : warmupService.isFailed() ? Health.outOfService() : Health.status(STARTING);
+        return builder.withDetails(warmupService.status()).build();
+    }
+}
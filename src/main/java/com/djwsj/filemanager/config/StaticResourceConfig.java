@@ -0,0 +1,70 @@
+// src/main/java/com/djwsj/filemanager/config/StaticResourceConfig.java
+package com.djwsj.filemanager.config;
+
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 静态资源映射（/**，位置为 spring.web.resources.static-locations，包括存储目录）
+ * <p>
+ * 存储目录下以 . 开头的目录（.index、.chunked、.incoming、.jobs、.thumbs、.gzip、.blobs 等）保存的是内部状态，
+ * 路径中任何一段以 . 开头的请求都按不存在处理（404）。
+ * 先于 Spring Boot 的默认配置执行，Boot 看到 /** 已经映射后不再注册自己的处理器。
+ */
+@Configuration
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private final WebProperties.Resources resources;
+
+    public StaticResourceConfig(WebProperties webProperties) {
+        this.resources = webProperties.getResources();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        var registration = registry.addResourceHandler("/**")
+                .addResourceLocations(resources.getStaticLocations());
+        if (resources.getCache().getPeriod() != null) {
+            registration.setCachePeriod((int) resources.getCache().getPeriod().getSeconds());
+        }
+        registration.resourceChain(true).addResolver(new VisibleResourceResolver());
+    }
+
+    /**
+     * 拒绝隐藏路径的资源解析器
+     */
+    static final class VisibleResourceResolver extends PathResourceResolver {
+
+        @Override
+        protected Resource getResource(String resourcePath, Resource location) throws IOException {
+            return isHidden(resourcePath) ? null : super.getResource(resourcePath, location);
+        }
+
+        static boolean isHidden(String resourcePath) {
+            // 存储目录是 URL 形式的位置，这里拿到的路径还没有解码（例如 %2eindex）
+            String decoded;
+            try {
+                decoded = UriUtils.decode(resourcePath, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return true;
+            }
+            for (String segment : decoded.split("[/\\\\]")) {
+                if (segment.startsWith(".")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+// src/main/java/com/djwsj/filemanager/config/StorageLayoutEndpoint.java
+package com.djwsj.filemanager.config;
+
+import com.djwsj.filemanager.service.StorageLayoutMigrator;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 存储布局迁移的管理端点
+ * GET  /actuator/storagelayout  查看当前布局和迁移进度
+ * POST /actuator/storagelayout  在后台把现有文件迁移到当前配置的布局（file.storage.layout）
+ * <p>
+ * 仅供运维人员使用，默认不通过 HTTP 暴露（本应用没有认证），
+ * 需要迁移时临时加入 management.endpoints.web.exposure.include，并限制在内部管理端口上访问。
+ */
+@Component
+@Endpoint(id = "storagelayout")
+public class StorageLayoutEndpoint {
+
+    private final StorageLayoutMigrator migrator;
+
+    public StorageLayoutEndpoint(StorageLayoutMigrator migrator) {
+        this.migrator = migrator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return migrator.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> migrate() {
+        boolean started = migrator.start();
+        Map<String, Object> status = migrator.status();
+        status.put("started", started);
+        return status;
+    }
+}
@@ -0,0 +1,67 @@
+// src/main/java/com/djwsj/filemanager/config/VirtualThreadConfig.java
+package com.djwsj.filemanager.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程模式（file.virtual-threads.enabled=true，需要 Java 21 及以上）
+ * <p>
+ * Tomcat 的请求处理（包括 FileController 中的上传、下载）改为每个请求一个虚拟线程，
+ * 慢速客户端在传输期间阻塞的只是虚拟线程，不再占用 server.tomcat.threads.max 个平台线程中的一个。
+ * 项目仍以 Java 17 编译，这里通过反射调用 Java 21 的 API；运行在 Java 21 以下时打印警告并保持平台线程池。
+ * 使用 Maven 的 java21 profile（mvn -Pjava21 package）可以直接面向 Java 21 编译。
+ * <p>
+ * 使用项目自己的配置项而不是 spring.threads.virtual.enabled：Maven 构建使用的 Boot 3.1 不认识后者，
+ * Gradle 构建使用的 Boot 3.2 则会同时启用自带的虚拟线程配置，与这里重复。
+ */
+@Configuration
+@ConditionalOnProperty(name = "file.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadExecutor("tomcat-handler-");
+        if (executor == null) {
+            log.warn("当前 Java 版本 {} 不支持虚拟线程（需要 21 及以上），Tomcat 继续使用平台线程池", Runtime.version().feature());
+            return protocolHandler -> {
+            };
+        }
+        log.info("Tomcat 请求处理使用虚拟线程");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器，当前 JVM 不支持虚拟线程时返回 null
+     */
+    private static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            // Thread.ofVirtual().name(namePrefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            // Executors.newThreadPerTaskExecutor(factory)
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            log.warn("无法创建虚拟线程执行器: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+// src/main/java/com/djwsj/filemanager/controller/ChunkedUploadController.java
+package com.djwsj.filemanager.controller;
+
+import com.djwsj.filemanager.entity.ChunkedUpload;
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.service.ChunkedUploadService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 软件端 - 分片上传（断点续传）接口
+ * <p>
+ * 1. POST   /api/v1/files/uploads                          初始化上传会话
+ * 2. PUT    /api/v1/files/uploads/{uploadId}/chunks/{index} 上传第 index 个分片（application/octet-stream，可并行）
+ * 3. GET    /api/v1/files/uploads/{uploadId}                查询状态及缺失分片
+ * 4. POST   /api/v1/files/uploads/{uploadId}/complete       合并完成
+ * 5. DELETE /api/v1/files/uploads/{uploadId}                取消上传
+ */
+@Controller
+@RequestMapping("/api/v1/files/uploads")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public ChunkedUploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    /**
+     * 初始化分片上传
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> initUpload(
+            @RequestParam("filename") String filename,
+            @RequestParam("totalSize") long totalSize,
+            @RequestParam(value = "chunkSize", required = false) Integer chunkSize,
+            @RequestParam(value = "uploadUser", defaultValue = "system") String uploadUser,
+            @RequestParam(value = "category", required = false) String category) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            // 处理文件分类
+            FileCategory fileCategory = null;
+            if (category != null && !category.isEmpty()) {
+                try {
+                    fileCategory = FileCategory.valueOf(category.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    // 使用自动分类
+                }
+            }
+
+            ChunkedUpload upload = chunkedUploadService.initUpload(filename, totalSize, chunkSize,
+                    fileCategory, uploadUser);
+
+            response.put("success", true);
+            response.put("code", 200);
+            response.put("message", "上传会话已创建");
+            response.put("data", upload);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(response, e.getMessage());
+        } catch (Exception e) {
+            return serverError(response, "创建上传会话失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 上传单个分片
+     */
+    @PutMapping(value = "/{uploadId}/chunks/{chunkIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> uploadChunk(@PathVariable String uploadId,
+                                                           @PathVariable int chunkIndex,
+                                                           HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try (InputStream input = request.getInputStream()) {
+            ChunkedUpload upload = chunkedUploadService.writeChunk(uploadId, chunkIndex, input);
+
+            response.put("success", true);
+            response.put("code", 200);
+            response.put("message", "分片上传成功");
+            response.put("data", Map.of(
+                    "chunkIndex", chunkIndex,
+                    "receivedChunks", upload.getReceivedChunks(),
+                    "totalChunks", upload.getTotalChunks(),
+                    "complete", upload.isComplete()
+            ));
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(response, e.getMessage());
+        } catch (IOException e) {
+            return serverError(response, "读取分片数据失败: " + e.getMessage());
+        } catch (Exception e) {
+            return serverError(response, "分片上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询上传状态（断点续传时获取缺失分片）
+     */
+    @GetMapping("/{uploadId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getUploadStatus(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        ChunkedUpload upload = chunkedUploadService.getStatus(uploadId);
+        if (upload == null) {
+            return notFound(response);
+        }
+
+        response.put("success", true);
+        response.put("code", 200);
+        response.put("data", upload);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 完成分片上传
+     */
+    @PostMapping("/{uploadId}/complete")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> completeUpload(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            FileInfo fileInfo = chunkedUploadService.completeUpload(uploadId);
+            fileInfo.setDownloadUrl("/api/v1/files/download/" + fileInfo.getFilename());
+
+            response.put("success", true);
+            response.put("code", 200);
+            response.put("message", "文件上传成功");
+            response.put("data", fileInfo);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return badRequest(response, e.getMessage());
+        } catch (Exception e) {
+            return serverError(response, "文件上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消分片上传
+     */
+    @DeleteMapping("/{uploadId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> abortUpload(@PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!chunkedUploadService.abortUpload(uploadId)) {
+            return notFound(response);
+        }
+
+        response.put("success", true);
+        response.put("code", 200);
+        response.put("message", "上传已取消");
+        return ResponseEntity.ok(response);
+    }
+
+    // ==================== 工具方法 ====================
+
+    private ResponseEntity<Map<String, Object>> badRequest(Map<String, Object> response, String message) {
+        response.put("success", false);
+        response.put("code", 400);
+        response.put("message", message);
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> notFound(Map<String, Object> response) {
+        response.put("success", false);
+        response.put("code", 404);
+        response.put("message", "上传会话不存在或已过期");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
+    private ResponseEntity<Map<String, Object>> serverError(Map<String, Object> response, String message) {
+        response.put("success", false);
+        response.put("code", 500);
+        response.put("message", message);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    }
+}
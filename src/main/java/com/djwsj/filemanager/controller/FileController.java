@@ -1,34 +1,65 @@
 package com.djwsj.filemanager.controller;
 
 import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.entity.FilePage;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.entity.FileSearchResult;
 import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.FileSortField;
+import com.djwsj.filemanager.service.BatchUploadService;
+import com.djwsj.filemanager.service.FileDownloadService;
 import com.djwsj.filemanager.service.FileStorageService;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import com.djwsj.filemanager.service.StreamingUploadService;
+import org.apache.catalina.connector.ClientAbortException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @Controller
 @RequestMapping("/api")
 public class FileController {
 
+    private static final Logger log = LoggerFactory.getLogger(FileController.class);
+
     private final FileStorageService fileStorageService;
+    private final StreamingUploadService streamingUploadService;
+    private final FileDownloadService fileDownloadService;
+    private final BatchUploadService batchUploadService;
 
     // 最大文件大小 2GB
     private static final long MAX_FILE_SIZE = 2L * 1024 * 1024 * 1024;
 
-    public FileController(FileStorageService fileStorageService) {
+    // 列表、搜索接口每页的最大条数
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    public FileController(FileStorageService fileStorageService,
+                          StreamingUploadService streamingUploadService,
+                          FileDownloadService fileDownloadService,
+                          BatchUploadService batchUploadService) {
         this.fileStorageService = fileStorageService;
+        this.streamingUploadService = streamingUploadService;
+        this.fileDownloadService = fileDownloadService;
+        this.batchUploadService = batchUploadService;
     }
 
     // ==================== 根路径重定向 ====================
@@ -108,9 +139,10 @@ public class FileController {
     }
 
     @GetMapping("/download/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable String fileName,
-                                                 HttpServletRequest request) {
-        return handleFileDownload(fileName, request);
+    public void downloadFile(@PathVariable String fileName,
+                             HttpServletRequest request,
+                             HttpServletResponse response) {
+        handleFileDownload(fileName, request, response);
     }
 
     // ==================== 软件端REST API接口 ====================
@@ -174,6 +206,73 @@ public class FileController {
         }
     }
 
+    /**
+     * 软件端 - 流式上传接口（支持单个或多个文件）
+     * 请求体在到达时直接解析并写入存储目录，不经过容器的 multipart 临时文件。
+     * 注意：不能使用 @RequestParam，否则容器会提前解析并缓存整个请求体，uploadUser/category 通过查询参数或表单字段传递
+     */
+    @PostMapping(value = "/v1/files/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> uploadFileStreamApi(HttpServletRequest request) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            MultiValueMap<String, String> queryParams = UriComponentsBuilder.newInstance()
+                    .query(request.getQueryString()).build().getQueryParams();
+            String uploadUser = queryParam(queryParams, "uploadUser");
+            String category = queryParam(queryParams, "category");
+
+            // 处理文件分类
+            FileCategory fileCategory = null;
+            if (category != null && !category.isEmpty()) {
+                try {
+                    fileCategory = FileCategory.valueOf(category.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    // 使用自动分类
+                }
+            }
+
+            List<Map<String, Object>> failedFiles = new ArrayList<>();
+            List<FileInfo> successFiles = streamingUploadService.storeMultipart(request.getInputStream(),
+                    request.getContentType(), fileCategory, uploadUser != null ? uploadUser : "system", failedFiles);
+
+            if (successFiles.isEmpty() && failedFiles.isEmpty()) {
+                response.put("success", false);
+                response.put("code", 400);
+                response.put("message", "请选择要上传的文件");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            successFiles.forEach(fileInfo ->
+                    fileInfo.setDownloadUrl("/api/v1/files/download/" + fileInfo.getFilename()));
+
+            response.put("success", failedFiles.isEmpty());
+            response.put("code", failedFiles.isEmpty() ? 200 : 400);
+            response.put("message", String.format("上传完成，成功%d个，失败%d个",
+                    successFiles.size(), failedFiles.size()));
+            response.put("data", Map.of(
+                    "successFiles", successFiles,
+                    "failedFiles", failedFiles,
+                    "successCount", successFiles.size(),
+                    "failedCount", failedFiles.size()
+            ));
+
+            return failedFiles.isEmpty() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("code", 500);
+            response.put("message", "文件上传失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 软件端 - 多文件上传接口
      */
@@ -182,7 +281,8 @@ public class FileController {
     public ResponseEntity<Map<String, Object>> uploadMultipleFilesApi(
             @RequestParam("files") MultipartFile[] files,
             @RequestParam(value = "uploadUser", defaultValue = "system") String uploadUser,
-            @RequestParam(value = "category", required = false) String category) {
+            @RequestParam(value = "category", required = false) String category,
+            @RequestParam(value = "concurrency", defaultValue = "0") int concurrency) {
 
         Map<String, Object> response = new HashMap<>();
 
@@ -205,41 +305,36 @@ public class FileController {
                 }
             }
 
-            List<FileInfo> successFiles = new ArrayList<>();
             List<Map<String, Object>> failedFiles = new ArrayList<>();
+            List<MultipartFile> acceptedFiles = new ArrayList<>(files.length);
 
-            // 批量处理文件
+            // 先做不涉及磁盘的检查
             for (MultipartFile file : files) {
-                try {
-                    if (file.isEmpty()) {
-                        Map<String, Object> failedFile = new HashMap<>();
-                        failedFile.put("filename", file.getOriginalFilename());
-                        failedFile.put("reason", "文件为空");
-                        failedFiles.add(failedFile);
-                        continue;
-                    }
-
-                    // 文件大小验证 - 改为最大2GB
-                    if (file.getSize() > MAX_FILE_SIZE) {
-                        Map<String, Object> failedFile = new HashMap<>();
-                        failedFile.put("filename", file.getOriginalFilename());
-                        failedFile.put("reason", "文件大小不能超过 2GB");
-                        failedFiles.add(failedFile);
-                        continue;
-                    }
-
-                    FileInfo fileInfo = fileStorageService.storeFile(file, fileCategory, uploadUser);
-                    fileInfo.setDownloadUrl("/api/v1/files/download/" + fileInfo.getFilename());
-                    successFiles.add(fileInfo);
-
-                } catch (Exception e) {
+                if (file.isEmpty()) {
                     Map<String, Object> failedFile = new HashMap<>();
                     failedFile.put("filename", file.getOriginalFilename());
-                    failedFile.put("reason", e.getMessage());
+                    failedFile.put("reason", "文件为空");
                     failedFiles.add(failedFile);
+                    continue;
                 }
+
+                // 文件大小验证 - 改为最大2GB
+                if (file.getSize() > MAX_FILE_SIZE) {
+                    Map<String, Object> failedFile = new HashMap<>();
+                    failedFile.put("filename", file.getOriginalFilename());
+                    failedFile.put("reason", "文件大小不能超过 2GB");
+                    failedFiles.add(failedFile);
+                    continue;
+                }
+                acceptedFiles.add(file);
             }
 
+            // 并行存储（每个批次的并发数有上限）
+            List<FileInfo> successFiles = batchUploadService.storeAll(acceptedFiles, fileCategory, uploadUser,
+                    concurrency, failedFiles);
+            successFiles.forEach(fileInfo ->
+                    fileInfo.setDownloadUrl("/api/v1/files/download/" + fileInfo.getFilename()));
+
             // 构建响应
             response.put("success", true);
             response.put("code", 200);
@@ -267,61 +362,79 @@ public class FileController {
      * 软件端 - 文件下载接口
      */
     @GetMapping("/v1/files/download/{fileName:.+}")
-    public ResponseEntity<Resource> downloadFileApi(@PathVariable String fileName,
-                                                    HttpServletRequest request) {
-        return handleFileDownload(fileName, request);
+    public void downloadFileApi(@PathVariable String fileName,
+                                HttpServletRequest request,
+                                HttpServletResponse response) {
+        handleFileDownload(fileName, request, response);
     }
 
     /**
      * 软件端 - 获取文件列表接口
+     * <p>
+     * 支持按上传时间（time）、大小（size）、文件名（name）排序。翻页时优先使用返回的 nextCursor，
+     * 不传 cursor 时按 page 偏移分页（兼容旧客户端）。
      */
     @GetMapping("/v1/files")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getFilesApi(
             @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "time") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) String cursor) {
 
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<FileInfo> files;
-
+            FileCategory fileCategory = null;
             if (category != null && !category.isEmpty()) {
                 try {
-                    FileCategory fileCategory = FileCategory.valueOf(category.toUpperCase());
-                    files = fileStorageService.getFilesByCategory(fileCategory);
+                    fileCategory = FileCategory.valueOf(category.toUpperCase());
                 } catch (IllegalArgumentException e) {
-                    files = fileStorageService.getAllFiles();
+                    // 分类不存在时返回所有文件
                 }
-            } else {
-                files = fileStorageService.getAllFiles();
             }
 
+            FileSortField sortField = FileSortField.fromParam(sort);
+            boolean ascending = "asc".equalsIgnoreCase(order);
+            page = Math.max(0, page);
+            size = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+
+            // 分页处理：直接从元数据索引的有序索引读取当前页
+            long total = fileStorageService.countFiles(fileCategory);
+            FilePage filePage = fileStorageService.getFiles(fileCategory, sortField, ascending, cursor,
+                    pageOffset(page, size), size);
+            List<FileInfo> pagedFiles = filePage.getFiles();
+
             // 设置下载URL
-            files.forEach(file ->
+            pagedFiles.forEach(file ->
                     file.setDownloadUrl("/api/v1/files/download/" + file.getFilename()));
 
-            // 分页处理（简化版）
-            int total = files.size();
-            int start = Math.min(page * size, total);
-            int end = Math.min((page + 1) * size, total);
-            List<FileInfo> pagedFiles = files.subList(start, end);
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("page", page);
+            pagination.put("size", size);
+            pagination.put("total", total);
+            pagination.put("totalPages", (int) Math.ceil((double) total / size));
+            pagination.put("sort", sortField.getParamName());
+            pagination.put("order", ascending ? "asc" : "desc");
+            pagination.put("hasMore", filePage.hasMore());
+            pagination.put("nextCursor", filePage.getNextCursor());
 
             response.put("success", true);
             response.put("code", 200);
             response.put("data", Map.of(
                     "files", pagedFiles,
-                    "pagination", Map.of(
-                            "page", page,
-                            "size", size,
-                            "total", total,
-                            "totalPages", (int) Math.ceil((double) total / size)
-                    )
+                    "pagination", pagination
             ));
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("code", 500);
@@ -330,6 +443,89 @@ public class FileController {
         }
     }
 
+    /**
+     * 软件端 - 文件搜索接口
+     * <p>
+     * q 为空格分隔的关键字，匹配原始文件名、扩展名和上传用户（全部关键字都匹配才命中，不区分大小写），
+     * 结果按相关度排序：完整文件名 > 文件名开头 > 扩展名 > 单词开头 > 上传用户 > 文件名中间。
+     * 可以组合分类、扩展名、上传用户、大小范围（字节）和上传日期范围（yyyy-MM-dd 或 yyyy-MM-ddTHH:mm:ss）过滤。
+     * 最多只能翻到前 file.search.max-result-window 条结果，更深的页返回 400。
+     */
+    @GetMapping("/v1/files/search")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> searchFilesApi(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String extension,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            FileSearchQuery query = new FileSearchQuery();
+            query.setKeywords(q);
+            if (category != null && !category.isEmpty()) {
+                try {
+                    query.setCategory(FileCategory.valueOf(category.toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("不支持的分类: " + category);
+                }
+            }
+            // 扩展名过滤不含点，兼容 extension=.pdf 的写法
+            query.setExtension(emptyToNull(extension != null && extension.startsWith(".")
+                    ? extension.substring(1) : extension));
+            query.setUploadUser(emptyToNull(user));
+            query.setMinSize(minSize);
+            query.setMaxSize(maxSize);
+            query.setUploadedFrom(parseSearchTime(from, false));
+            query.setUploadedTo(parseSearchTime(to, true));
+
+            page = Math.max(0, page);
+            size = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+            FileSearchResult result = fileStorageService.searchFiles(query, pageOffset(page, size), size);
+            List<FileInfo> files = result.getFiles();
+
+            // 设置下载URL
+            files.forEach(file ->
+                    file.setDownloadUrl("/api/v1/files/download/" + file.getFilename()));
+
+            Map<String, Object> pagination = new HashMap<>();
+            pagination.put("page", page);
+            pagination.put("size", size);
+            pagination.put("total", result.getTotal());
+            pagination.put("totalPages", (int) Math.ceil((double) result.getTotal() / size));
+            // 超出最大结果窗口的页无法请求
+            pagination.put("hasMore", (long) (page + 1) * size
+                    < Math.min(result.getTotal(), fileStorageService.getMaxSearchResultWindow()));
+
+            response.put("success", true);
+            response.put("code", 200);
+            response.put("data", Map.of(
+                    "files", files,
+                    "pagination", pagination
+            ));
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("code", 400);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("code", 500);
+            response.put("message", "搜索文件失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     /**
      * 软件端 - 删除文件接口
      */
@@ -427,44 +623,30 @@ public class FileController {
     }
 
     /**
-     * 统一的文件下载处理方法
+     * 统一的文件下载处理方法（支持 Range 与条件请求）
      */
-    private ResponseEntity<Resource> handleFileDownload(String fileName, HttpServletRequest request) {
+    private void handleFileDownload(String fileName, HttpServletRequest request, HttpServletResponse response) {
         try {
-            System.out.println("开始下载文件: " + fileName);
-
-            // 加载文件作为资源
-            Resource resource = fileStorageService.loadFileAsResource(fileName);
-
-            // 尝试确定文件的内容类型
-            String contentType = null;
-            try {
-                contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-            } catch (IOException ex) {
-                System.out.println("无法确定文件类型: " + ex.getMessage());
+            if (log.isDebugEnabled()) {
+                log.debug("开始下载文件: {}, Range: {}", fileName, request.getHeader("Range"));
             }
 
-            // 如果无法确定类型，使用默认值
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+            if (!fileDownloadService.download(fileName, request, response)) {
+                response.setStatus(HttpStatus.NOT_FOUND.value());
             }
 
-            System.out.println("文件类型: " + contentType);
-
-            // 获取原始文件名（去掉时间戳前缀）
-            String originalFileName = fileName.contains("_") ?
-                    fileName.substring(fileName.indexOf("_") + 1) : fileName;
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + originalFileName + "\"")
-                    .body(resource);
-
+        } catch (ClientAbortException e) {
+            // 客户端中途断开，属于正常情况
+            log.debug("客户端中断下载: {}", fileName);
         } catch (Exception e) {
-            System.err.println("下载文件时出错: " + fileName + " - " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.notFound().build();
+            log.atError()
+                    .addKeyValue("file", fileName)
+                    .setCause(e)
+                    .log("下载文件时出错");
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.NOT_FOUND.value());
+            }
         }
     }
 
@@ -525,6 +707,46 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 页码对应的偏移量，按 long 计算后限制在 int 范围内（页码很大时返回空页，而不是溢出后回到第一页）
+     */
+    private static int pageOffset(int page, int size) {
+        return (int) Math.min((long) page * size, Integer.MAX_VALUE - size);
+    }
+
+    /**
+     * 解析搜索的日期参数为毫秒时间戳；只有日期时，下限取当天开始，上限取当天结束
+     */
+    private Long parseSearchTime(String value, boolean endOfDay) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            LocalDateTime time;
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                time = endOfDay ? date.plusDays(1).atStartOfDay().minusNanos(1_000_000) : date.atStartOfDay();
+            } else {
+                time = LocalDateTime.parse(value);
+            }
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("日期格式错误: " + value + "（应为 yyyy-MM-dd 或 yyyy-MM-ddTHH:mm:ss）");
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
+
+    /**
+     * 读取并解码查询参数
+     */
+    private String queryParam(MultiValueMap<String, String> queryParams, String name) {
+        String value = queryParams.getFirst(name);
+        return value != null ? UriUtils.decode(value, StandardCharsets.UTF_8) : null;
+    }
+
     /**
      * 格式化文件大小显示
      */
@@ -0,0 +1,55 @@
+// src/main/java/com/djwsj/filemanager/controller/ProcessingJobController.java
+package com.djwsj.filemanager.controller;
+
+import com.djwsj.filemanager.entity.ProcessingJob;
+import com.djwsj.filemanager.service.PostProcessingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 软件端 - 上传后处理任务状态接口
+ * <p>
+ * 1. GET /api/v1/files/{fileName}/processing  文件最近一次的后处理任务
+ * 2. GET /api/v1/jobs/{jobId}                  按任务标识查询
+ */
+@Controller
+@RequestMapping("/api/v1")
+public class ProcessingJobController {
+
+    private final PostProcessingService postProcessingService;
+
+    public ProcessingJobController(PostProcessingService postProcessingService) {
+        this.postProcessingService = postProcessingService;
+    }
+
+    @GetMapping("/files/{fileName}/processing")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getFileJob(@PathVariable String fileName) {
+        return jobResponse(postProcessingService.getJobForFile(fileName));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return jobResponse(postProcessingService.getJob(jobId));
+    }
+
+    private ResponseEntity<Map<String, Object>> jobResponse(ProcessingJob job) {
+        Map<String, Object> response = new HashMap<>();
+        if (job == null) {
+            response.put("success", false);
+            response.put("code", 404);
+            response.put("message", "后处理任务不存在或已过期");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("code", 200);
+        response.put("data", job);
+        return ResponseEntity.ok(response);
+    }
+}
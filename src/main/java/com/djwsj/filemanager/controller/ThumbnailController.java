@@ -0,0 +1,80 @@
+// src/main/java/com/djwsj/filemanager/controller/ThumbnailController.java
+package com.djwsj.filemanager.controller;
+
+import com.djwsj.filemanager.service.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缩略图接口
+ * <p>
+ * GET /api/thumb/{fileName}?size=256  图片缩略图（jpg，带透明通道的图片为 png）
+ * <p>
+ * 尺寸对齐到 file.thumbnail.sizes 中的值。缩略图的 ETag 来自原文件大小和修改时间的哈希，响应允许浏览器长期缓存。
+ */
+@Controller
+@RequestMapping("/api")
+public class ThumbnailController {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailController.class);
+
+    private static final CacheControl THUMBNAIL_CACHE = CacheControl.maxAge(30, TimeUnit.DAYS).cachePublic();
+
+    private final ThumbnailService thumbnailService;
+
+    public ThumbnailController(ThumbnailService thumbnailService) {
+        this.thumbnailService = thumbnailService;
+    }
+
+    @GetMapping("/thumb/{fileName:.+}")
+    public ResponseEntity<?> getThumbnail(@PathVariable String fileName,
+                                          @RequestParam(value = "size", defaultValue = "256") int size,
+                                          WebRequest webRequest) {
+        int normalized = thumbnailService.normalizeSize(size);
+        Path thumbnail;
+        try {
+            thumbnail = thumbnailService.getThumbnail(fileName, normalized);
+        } catch (IOException | RuntimeException e) {
+            log.warn("生成缩略图失败: {} - {}", fileName, e.getMessage());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "生成缩略图失败");
+        }
+        if (thumbnail == null) {
+            return error(HttpStatus.NOT_FOUND, "文件不存在或不支持缩略图");
+        }
+
+        // 缓存文件名是定长的哈希（随原文件大小和修改时间变化），只含 ASCII 字符，可以直接作为 ETag
+        String etag = "\"" + thumbnail.getFileName() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(THUMBNAIL_CACHE).eTag(etag).build();
+        }
+        MediaType contentType = thumbnail.getFileName().toString().endsWith(".png")
+                ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .cacheControl(THUMBNAIL_CACHE)
+                .eTag(etag)
+                .body(new FileSystemResource(thumbnail));
+    }
+
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("code", status.value());
+        response.put("message", message);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(response);
+    }
+}
@@ -0,0 +1,76 @@
+// src/main/java/com/djwsj/filemanager/entity/ChunkedUpload.java
+package com.djwsj.filemanager.entity;
+
+import com.djwsj.filemanager.enums.FileCategory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片上传会话状态（返回给客户端用于断点续传）
+ */
+public class ChunkedUpload {
+    private String uploadId; // 上传会话标识
+    private String originalFilename; // 原始文件名
+    private long totalSize; // 文件总大小（字节）
+    private int chunkSize; // 分片大小（字节）
+    private int totalChunks; // 分片总数
+    private int receivedChunks; // 已接收分片数
+    private List<Integer> missingChunks; // 尚未接收的分片序号
+    private FileCategory category; // 指定的文件分类（可为空）
+    private String uploadUser; // 上传用户
+    private LocalDateTime createdTime; // 会话创建时间
+
+    public ChunkedUpload() {
+    }
+
+    /**
+     * 是否所有分片都已接收
+     */
+    public boolean isComplete() {
+        return receivedChunks == totalChunks;
+    }
+
+    // Getters and Setters
+    public String getUploadId() { return uploadId; }
+    public void setUploadId(String uploadId) { this.uploadId = uploadId; }
+
+    public String getOriginalFilename() { return originalFilename; }
+    public void setOriginalFilename(String originalFilename) { this.originalFilename = originalFilename; }
+
+    public long getTotalSize() { return totalSize; }
+    public void setTotalSize(long totalSize) { this.totalSize = totalSize; }
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+
+    public int getTotalChunks() { return totalChunks; }
+    public void setTotalChunks(int totalChunks) { this.totalChunks = totalChunks; }
+
+    public int getReceivedChunks() { return receivedChunks; }
+    public void setReceivedChunks(int receivedChunks) { this.receivedChunks = receivedChunks; }
+
+    public List<Integer> getMissingChunks() { return missingChunks; }
+    public void setMissingChunks(List<Integer> missingChunks) { this.missingChunks = missingChunks; }
+
+    public FileCategory getCategory() { return category; }
+    public void setCategory(FileCategory category) { this.category = category; }
+
+    public String getUploadUser() { return uploadUser; }
+    public void setUploadUser(String uploadUser) { this.uploadUser = uploadUser; }
+
+    public LocalDateTime getCreatedTime() { return createdTime; }
+    public void setCreatedTime(LocalDateTime createdTime) { this.createdTime = createdTime; }
+
+    @Override
+    public String toString() {
+        return "ChunkedUpload{" +
+                "uploadId='" + uploadId + '\'' +
+                ", originalFilename='" + originalFilename + '\'' +
+                ", totalSize=" + totalSize +
+                ", chunkSize=" + chunkSize +
+                ", totalChunks=" + totalChunks +
+                ", receivedChunks=" + receivedChunks +
+                '}';
+    }
+}
@@ -2,6 +2,7 @@
 package com.djwsj.filemanager.entity;
 
 import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.StorageCodec;
 
 import java.time.LocalDateTime;
 
@@ -17,6 +18,9 @@ public class FileInfo {
     private FileCategory category; // 文件分类
     private String extension; // 文件扩展名
     private String uploadUser; // 上传用户
+    private String contentHash; // 内容哈希（SHA-256，仅去重存储模式）
+    private StorageCodec storageCodec; // 磁盘上的压缩编码（压缩存储模式），未压缩为 null
+    private String checksum; // 原始内容的 SHA-256 校验和（上传后处理完成后才有）
 
     // 默认构造方法
     public FileInfo() {
@@ -48,14 +52,8 @@ public class FileInfo {
      * 从文件名提取扩展名
      */
     private String extractExtension(String filename) {
-        if (filename == null || filename.isEmpty()) {
-            return "";
-        }
-        int lastDotIndex = filename.lastIndexOf('.');
-        if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
-            return filename.substring(lastDotIndex + 1).toLowerCase();
-        }
-        return "";
+        String extension = FileCategory.extensionOf(filename);
+        return extension != null ? extension : "";
     }
 
     /**
@@ -139,6 +137,15 @@ public class FileInfo {
     public String getUploadUser() { return uploadUser; }
     public void setUploadUser(String uploadUser) { this.uploadUser = uploadUser; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public StorageCodec getStorageCodec() { return storageCodec; }
+    public void setStorageCodec(StorageCodec storageCodec) { this.storageCodec = storageCodec; }
+
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
     @Override
     public String toString() {
         return "FileInfo{" +
@@ -0,0 +1,29 @@
+// src/main/java/com/djwsj/filemanager/entity/FilePage.java
+package com.djwsj.filemanager.entity;
+
+import java.util.List;
+
+/**
+ * 文件列表的一页结果
+ */
+public class FilePage {
+    private final List<FileInfo> files; // 当前页的文件
+    private final String nextCursor; // 下一页游标，没有更多数据时为 null
+
+    public FilePage(List<FileInfo> files, String nextCursor) {
+        this.files = files;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FileInfo> getFiles() {
+        return files;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
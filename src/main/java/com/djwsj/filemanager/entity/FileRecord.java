@@ -0,0 +1,88 @@
+// src/main/java/com/djwsj/filemanager/entity/FileRecord.java
+package com.djwsj.filemanager.entity;
+
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.StorageCodec;
+
+/**
+ * 元数据索引中的文件记录（不可变，占用内存比 FileInfo 小）
+ */
+public final class FileRecord {
+    private final String filename; // 存储的文件名
+    private final String originalFilename; // 原始文件名
+    private final long size; // 文件大小（字节）
+    private final long uploadTime; // 上传时间（毫秒时间戳）
+    private final long lastModified; // 文件修改时间（毫秒时间戳）
+    private final String fileType; // MIME类型
+    private final FileCategory category; // 文件分类
+    private final String uploadUser; // 上传用户
+    private final String contentHash; // 内容哈希（SHA-256），去重存储的文件才有，其余为 null
+    private final StorageCodec storageCodec; // 磁盘上的压缩编码，未压缩存储为 null（size 始终是原始大小）
+    private final String checksum; // 原始内容的 SHA-256 校验和，后处理计算完成前为 null
+
+    public FileRecord(String filename, String originalFilename, long size, long uploadTime, long lastModified,
+                      String fileType, FileCategory category, String uploadUser) {
+        this(filename, originalFilename, size, uploadTime, lastModified, fileType, category, uploadUser, null);
+    }
+
+    public FileRecord(String filename, String originalFilename, long size, long uploadTime, long lastModified,
+                      String fileType, FileCategory category, String uploadUser, String contentHash) {
+        this(filename, originalFilename, size, uploadTime, lastModified, fileType, category, uploadUser, contentHash,
+                null);
+    }
+
+    public FileRecord(String filename, String originalFilename, long size, long uploadTime, long lastModified,
+                      String fileType, FileCategory category, String uploadUser, String contentHash,
+                      StorageCodec storageCodec) {
+        this(filename, originalFilename, size, uploadTime, lastModified, fileType, category, uploadUser, contentHash,
+                storageCodec, null);
+    }
+
+    public FileRecord(String filename, String originalFilename, long size, long uploadTime, long lastModified,
+                      String fileType, FileCategory category, String uploadUser, String contentHash,
+                      StorageCodec storageCodec, String checksum) {
+        this.filename = filename;
+        this.originalFilename = originalFilename;
+        this.size = size;
+        this.uploadTime = uploadTime;
+        this.lastModified = lastModified;
+        this.fileType = fileType;
+        this.category = category != null ? category : FileCategory.OTHER;
+        this.uploadUser = uploadUser;
+        this.contentHash = contentHash;
+        this.storageCodec = storageCodec;
+        this.checksum = checksum;
+    }
+
+    public String getFilename() { return filename; }
+
+    public String getOriginalFilename() { return originalFilename; }
+
+    public long getSize() { return size; }
+
+    public long getUploadTime() { return uploadTime; }
+
+    public long getLastModified() { return lastModified; }
+
+    public String getFileType() { return fileType; }
+
+    public FileCategory getCategory() { return category; }
+
+    public String getUploadUser() { return uploadUser; }
+
+    public String getContentHash() { return contentHash; }
+
+    public StorageCodec getStorageCodec() { return storageCodec; }
+
+    public String getChecksum() { return checksum; }
+
+    @Override
+    public String toString() {
+        return "FileRecord{" +
+                "filename='" + filename + '\'' +
+                ", size=" + size +
+                ", uploadTime=" + uploadTime +
+                ", category=" + category +
+                '}';
+    }
+}
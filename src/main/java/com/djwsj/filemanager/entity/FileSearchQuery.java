@@ -0,0 +1,82 @@
+// src/main/java/com/djwsj/filemanager/entity/FileSearchQuery.java
+package com.djwsj.filemanager.entity;
+
+import com.djwsj.filemanager.enums.FileCategory;
+
+/**
+ * 文件搜索条件：关键字匹配原始文件名（含扩展名）和上传用户，其余为可以组合的过滤条件，为 null 时不过滤
+ */
+public class FileSearchQuery {
+    private String keywords; // 空格分隔的关键字，全部匹配才算命中，不区分大小写
+    private FileCategory category; // 文件分类
+    private String extension; // 扩展名，精确匹配，不区分大小写
+    private String uploadUser; // 上传用户，精确匹配，不区分大小写
+    private Long minSize; // 最小文件大小（字节，包含）
+    private Long maxSize; // 最大文件大小（字节，包含）
+    private Long uploadedFrom; // 上传时间下限（毫秒时间戳，包含）
+    private Long uploadedTo; // 上传时间上限（毫秒时间戳，包含）
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(String keywords) {
+        this.keywords = keywords;
+    }
+
+    public FileCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(FileCategory category) {
+        this.category = category;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    public String getUploadUser() {
+        return uploadUser;
+    }
+
+    public void setUploadUser(String uploadUser) {
+        this.uploadUser = uploadUser;
+    }
+
+    public Long getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(Long minSize) {
+        this.minSize = minSize;
+    }
+
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(Long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Long getUploadedFrom() {
+        return uploadedFrom;
+    }
+
+    public void setUploadedFrom(Long uploadedFrom) {
+        this.uploadedFrom = uploadedFrom;
+    }
+
+    public Long getUploadedTo() {
+        return uploadedTo;
+    }
+
+    public void setUploadedTo(Long uploadedTo) {
+        this.uploadedTo = uploadedTo;
+    }
+}
@@ -0,0 +1,25 @@
+// src/main/java/com/djwsj/filemanager/entity/FileSearchResult.java
+package com.djwsj.filemanager.entity;
+
+import java.util.List;
+
+/**
+ * 文件搜索的一页结果
+ */
+public class FileSearchResult {
+    private final List<FileInfo> files; // 当前页的文件，按相关度排序
+    private final long total; // 命中的文件总数
+
+    public FileSearchResult(List<FileInfo> files, long total) {
+        this.files = files;
+        this.total = total;
+    }
+
+    public List<FileInfo> getFiles() {
+        return files;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
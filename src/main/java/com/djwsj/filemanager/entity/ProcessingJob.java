@@ -0,0 +1,49 @@
+// src/main/java/com/djwsj/filemanager/entity/ProcessingJob.java
+package com.djwsj.filemanager.entity;
+
+import com.djwsj.filemanager.enums.ProcessingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 上传后处理任务（校验和、缩略图等，在上传请求返回后异步执行）
+ */
+public class ProcessingJob {
+    private String jobId; // 任务标识
+    private String filename; // 存储的文件名
+    private ProcessingStatus status; // 任务状态
+    private int attempts; // 已尝试次数
+    private String error; // 最近一次失败原因
+    private Map<String, String> results; // 各处理步骤的结果，例如 sha256、thumbnails
+    private LocalDateTime createdTime; // 创建时间
+    private LocalDateTime updatedTime; // 最近更新时间
+
+    public ProcessingJob() {
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getFilename() { return filename; }
+    public void setFilename(String filename) { this.filename = filename; }
+
+    public ProcessingStatus getStatus() { return status; }
+    public void setStatus(ProcessingStatus status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Map<String, String> getResults() { return results; }
+    public void setResults(Map<String, String> results) { this.results = results; }
+
+    public LocalDateTime getCreatedTime() { return createdTime; }
+    public void setCreatedTime(LocalDateTime createdTime) { this.createdTime = createdTime; }
+
+    public LocalDateTime getUpdatedTime() { return updatedTime; }
+    public void setUpdatedTime(LocalDateTime updatedTime) { this.updatedTime = updatedTime; }
+}
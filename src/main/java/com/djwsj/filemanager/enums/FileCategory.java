@@ -2,6 +2,11 @@ package com.djwsj.filemanager.enums;
 
 // src/main/java/com/djwsj/filemanager/enums/FileCategory.java
 
+import com.djwsj.filemanager.util.ExtensionTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public enum FileCategory {
     DOCUMENT("文档", new String[]{"pdf", "doc", "docx", "txt", "ppt", "pptx", "xls", "xlsx", "md"}, "#2196F3"),
     IMAGE("图片", new String[]{"jpg", "jpeg", "png", "gif", "bmp", "svg", "webp", "ico"}, "#4CAF50"),
@@ -9,9 +14,22 @@ public enum FileCategory {
     AUDIO("音频", new String[]{"mp3", "wav", "ogg", "flac", "aac", "m4a"}, "#9C27B0"),
     ARCHIVE("压缩包", new String[]{"zip", "rar", "7z", "tar", "gz", "bz2"}, "#795548"),
     CODE("代码", new String[]{"java", "js", "html", "css", "py", "cpp", "c", "h", "xml", "json"}, "#607D8B"),
-    EXECUTABLE("可执行文件", new String[]{"exe", "msi", "dmg", "pkg", "deb", "rpm"}, "#F44336"),
+    EXECUTABLE("可执行文件", new String[]{"exe", "msi", "dmg", "pkg", "deb", "rpm", "jar", "bat", "cmd"}, "#F44336"),
     OTHER("其他", new String[]{}, "#9E9E9E");
 
+    // 扩展名 -> 分类，类加载时由各分类的扩展名生成
+    private static final ExtensionTable<FileCategory> BY_EXTENSION;
+
+    static {
+        Map<String, FileCategory> entries = new LinkedHashMap<>();
+        for (FileCategory category : values()) {
+            for (String extension : category.extensions) {
+                entries.putIfAbsent(extension, category);
+            }
+        }
+        BY_EXTENSION = ExtensionTable.of(entries);
+    }
+
     private final String displayName;
     private final String[] extensions;
     private final String color;
@@ -35,31 +53,23 @@ public enum FileCategory {
     }
 
     public static FileCategory fromExtension(String extension) {
-        if (extension == null || extension.isEmpty()) {
-            return OTHER;
-        }
-
-        String ext = extension.toLowerCase();
-        for (FileCategory category : values()) {
-            for (String categoryExt : category.extensions) {
-                if (categoryExt.equals(ext)) {
-                    return category;
-                }
-            }
-        }
-        return OTHER;
+        FileCategory category = BY_EXTENSION.get(extension);
+        return category != null ? category : OTHER;
     }
 
     public static FileCategory fromFilename(String filename) {
-        if (filename == null || filename.isEmpty()) {
+        int start = ExtensionTable.extensionStart(filename);
+        if (start < 0) {
             return OTHER;
         }
+        FileCategory category = BY_EXTENSION.get(filename, start, filename.length());
+        return category != null ? category : OTHER;
+    }
 
-        int lastDotIndex = filename.lastIndexOf('.');
-        if (lastDotIndex > 0 && lastDotIndex < filename.length() - 1) {
-            String extension = filename.substring(lastDotIndex + 1).toLowerCase();
-            return fromExtension(extension);
-        }
-        return OTHER;
+    /**
+     * 文件名的小写扩展名，没有扩展名时返回 null。已知分类的扩展名返回共享的字符串实例，不创建新字符串
+     */
+    public static String extensionOf(String filename) {
+        return BY_EXTENSION.extensionOf(filename);
     }
-}
\ No newline at end of file
+}
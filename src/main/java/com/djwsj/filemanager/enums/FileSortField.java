@@ -0,0 +1,46 @@
+// src/main/java/com/djwsj/filemanager/enums/FileSortField.java
+package com.djwsj.filemanager.enums;
+
+import com.djwsj.filemanager.entity.FileRecord;
+
+import java.util.Comparator;
+
+/**
+ * 文件列表排序字段，每个字段在元数据索引中维护一个有序索引（相同值按存储文件名排序保证顺序稳定）
+ */
+public enum FileSortField {
+    UPLOAD_TIME("time", Comparator.comparingLong(FileRecord::getUploadTime)
+            .thenComparing(FileRecord::getFilename)),
+    SIZE("size", Comparator.comparingLong(FileRecord::getSize)
+            .thenComparing(FileRecord::getFilename)),
+    NAME("name", Comparator.comparing(FileRecord::getOriginalFilename, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(FileRecord::getFilename));
+
+    private final String paramName;
+    private final Comparator<FileRecord> comparator;
+
+    FileSortField(String paramName, Comparator<FileRecord> comparator) {
+        this.paramName = paramName;
+        this.comparator = comparator;
+    }
+
+    public String getParamName() {
+        return paramName;
+    }
+
+    public Comparator<FileRecord> getComparator() {
+        return comparator;
+    }
+
+    public static FileSortField fromParam(String param) {
+        if (param == null || param.isEmpty()) {
+            return UPLOAD_TIME;
+        }
+        for (FileSortField field : values()) {
+            if (field.paramName.equalsIgnoreCase(param) || field.name().equalsIgnoreCase(param)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("不支持的排序字段: " + param);
+    }
+}
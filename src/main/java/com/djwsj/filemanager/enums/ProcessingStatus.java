@@ -0,0 +1,12 @@
+// src/main/java/com/djwsj/filemanager/enums/ProcessingStatus.java
+package com.djwsj.filemanager.enums;
+
+/**
+ * 上传后处理任务状态
+ */
+public enum ProcessingStatus {
+    PENDING, // 等待处理
+    RUNNING, // 处理中
+    COMPLETED, // 已完成
+    FAILED // 多次重试后仍失败
+}
@@ -0,0 +1,52 @@
+// src/main/java/com/djwsj/filemanager/enums/StorageCodec.java
+package com.djwsj.filemanager.enums;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 文件在磁盘上的压缩编码（未压缩存储的文件没有编码，为 null）
+ */
+public enum StorageCodec {
+    GZIP("gzip");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String contentEncoding;
+
+    StorageCodec(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * 对应的 HTTP Content-Encoding，客户端接受时可以直接发送磁盘上的字节
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public OutputStream encode(OutputStream output) throws IOException {
+        return new GZIPOutputStream(output, BUFFER_SIZE);
+    }
+
+    public InputStream decode(InputStream input) throws IOException {
+        return new GZIPInputStream(input, BUFFER_SIZE);
+    }
+
+    /**
+     * 按名称解析，空字符串或未知名称返回 null
+     */
+    public static StorageCodec fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+// src/main/java/com/djwsj/filemanager/service/BatchUploadService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量上传服务：同一批次的文件并行校验和存储
+ * <p>
+ * 所有批次共用一个有界线程池（file.batch.pool-size 个线程，队列长度 file.batch.queue-capacity），
+ * 队列满时由提交请求的线程自己执行，从而对上传方形成背压。
+ * 每个批次最多同时存储 file.batch.max-concurrency-per-batch 个文件，避免单个大批次占满线程池。
+ */
+@Service
+public class BatchUploadService {
+
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrencyPerBatch;
+
+    public BatchUploadService(FileStorageService fileStorageService,
+                              @Value("${file.batch.pool-size:8}") int poolSize,
+                              @Value("${file.batch.queue-capacity:64}") int queueCapacity,
+                              @Value("${file.batch.max-concurrency-per-batch:4}") int maxConcurrencyPerBatch) {
+        this.fileStorageService = fileStorageService;
+        this.maxConcurrencyPerBatch = Math.max(1, maxConcurrencyPerBatch);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "batch-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                BatchUploadService::runInCallerOrReject);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 并行存储一批文件，返回时所有文件都已处理完毕
+     *
+     * @param concurrency 本批次的并发数，小于等于 0 时使用配置值，不能超过配置值
+     * @param failedFiles 收集存储失败的文件（filename、reason），顺序与提交顺序一致
+     * @return 存储成功的文件，顺序与提交顺序一致
+     */
+    public List<FileInfo> storeAll(List<MultipartFile> files, FileCategory category, String uploadUser,
+                                   int concurrency, List<Map<String, Object>> failedFiles) {
+        int limit = concurrency > 0 ? Math.min(concurrency, maxConcurrencyPerBatch) : maxConcurrencyPerBatch;
+        Semaphore permits = new Semaphore(limit);
+
+        List<CompletableFuture<FileInfo>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            try {
+                // 本批次在途的文件数达到上限时在这里等待
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.failedFuture(new RuntimeException("上传被中断")));
+                continue;
+            }
+
+            CompletableFuture<FileInfo> future;
+            try {
+                future = CompletableFuture.supplyAsync(
+                        () -> fileStorageService.storeFile(file, category, uploadUser), executor);
+            } catch (RuntimeException e) {
+                // 线程池已关闭（RejectedExecutionException）
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future.whenComplete((result, error) -> permits.release()));
+        }
+
+        List<FileInfo> storedFiles = new ArrayList<>(files.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                storedFiles.add(futures.get(i).join());
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                Map<String, Object> failedFile = new HashMap<>();
+                failedFile.put("filename", files.get(i).getOriginalFilename());
+                failedFile.put("reason", cause.getMessage());
+                failedFiles.add(failedFile);
+            }
+        }
+        return storedFiles;
+    }
+
+    /**
+     * 队列满时由提交线程自己执行（背压）；线程池已关闭时拒绝，
+     * 不能像 CallerRunsPolicy 那样静默丢弃任务，否则对应的 future 永远不会完成，请求线程会一直等待
+     */
+    private static void runInCallerOrReject(Runnable task, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("批量上传线程池已关闭");
+        }
+        task.run();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,174 @@
+// src/main/java/com/djwsj/filemanager/service/BlobStore.java
+package com.djwsj.filemanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的去重存储
+ * <p>
+ * 每份不同的内容只保存一次，文件名为内容的 SHA-256，按哈希前缀分两级目录存放：
+ * .blobs/ab/cd/abcd...。逻辑文件（索引中的记录）通过内容哈希引用内容块，
+ * 引用计数由元数据索引维护，最后一个引用删除后才删除内容块。
+ * <p>
+ * 写入和删除同一内容块时需要持有 {@link #lockFor(String)} 返回的锁，
+ * 保证“内容块已存在”的判断与索引更新之间不会被并发删除打断。
+ */
+@Component
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final String BLOB_DIR = ".blobs";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int LOCK_STRIPES = 64;
+
+    @Value("${file.storage.dedup.enabled:false}")
+    private boolean enabled;
+
+    private final Path blobLocation;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public BlobStore(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.blobLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(BLOB_DIR);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 新上传的文件是否按内容去重存储
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " 不可用", e);
+        }
+    }
+
+    public static String toHex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 计算已有文件的内容哈希（分片上传合并后的文件没有在接收时计算哈希）
+     */
+    public static String hash(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return hash(input);
+        }
+    }
+
+    /**
+     * 计算输入流剩余内容的哈希（不关闭输入流）
+     */
+    public static String hash(InputStream input) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest);
+    }
+
+    /**
+     * 内容块路径：两级哈希前缀目录
+     */
+    public Path blobPath(String contentHash) {
+        if (contentHash == null || contentHash.length() < 8 || !contentHash.matches("[0-9a-f]+")) {
+            throw new IllegalArgumentException("无效的内容哈希: " + contentHash);
+        }
+        return blobLocation.resolve(contentHash.substring(0, 2))
+                .resolve(contentHash.substring(2, 4))
+                .resolve(contentHash);
+    }
+
+    public ReentrantLock lockFor(String contentHash) {
+        return locks[Math.floorMod(contentHash.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * 把暂存文件存为内容块：内容已存在时直接丢弃暂存文件（不再写入），否则重命名为内容块。
+     * 调用方需持有该哈希的锁
+     *
+     * @return 内容块路径
+     */
+    public Path adopt(Path source, String contentHash) throws IOException {
+        Path blob = blobPath(contentHash);
+        if (Files.isRegularFile(blob)) {
+            Files.deleteIfExists(source);
+            return blob;
+        }
+
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.move(source, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            try {
+                Files.move(source, blob);
+            } catch (FileAlreadyExistsException exists) {
+                Files.deleteIfExists(source);
+            }
+        }
+        return blob;
+    }
+
+    /**
+     * 删除内容块，调用方需持有该哈希的锁并确认已没有引用
+     */
+    public boolean delete(String contentHash) throws IOException {
+        return Files.deleteIfExists(blobPath(contentHash));
+    }
+
+    /**
+     * 删除没有任何引用的内容块（写入内容块后、更新索引前进程崩溃留下的文件），返回删除数量。
+     * 每个内容块在持有该哈希的锁时重新判断是否被引用：上传在同一把锁内写入内容块并登记索引，
+     * 因此可以与上传同时执行，不会删除刚写入、即将登记的内容块
+     */
+    public int sweep(Predicate<String> referenced) {
+        if (!Files.isDirectory(blobLocation)) {
+            return 0;
+        }
+        int removed = 0;
+        try (Stream<Path> stream = Files.walk(blobLocation, 3)) {
+            for (Path path : (Iterable<Path>) stream.filter(Files::isRegularFile)::iterator) {
+                String contentHash = path.getFileName().toString();
+                ReentrantLock lock = lockFor(contentHash);
+                lock.lock();
+                try {
+                    if (!referenced.test(contentHash) && Files.deleteIfExists(path)) {
+                        removed++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理未引用的内容块失败: {}", e.getMessage());
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,37 @@
+// src/main/java/com/djwsj/filemanager/service/ChecksumPostProcessor.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 计算文件的 SHA-256 校验和并记录到索引（去重存储的文件上传时已经算过，直接使用；压缩存储的文件按原始内容计算）
+ */
+@Component
+@Order(100)
+public class ChecksumPostProcessor implements FilePostProcessor {
+
+    private final FileStorageService fileStorageService;
+
+    public ChecksumPostProcessor(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @Override
+    public void process(FileRecord record, Path file, Map<String, String> results) throws IOException {
+        String checksum = record.getChecksum() != null ? record.getChecksum() : record.getContentHash();
+        if (checksum == null) {
+            try (InputStream input = fileStorageService.openContent(record, file)) {
+                checksum = BlobStore.hash(input);
+            }
+        }
+        results.put("sha256", checksum);
+        fileStorageService.updateChecksum(record, checksum);
+    }
+}
@@ -0,0 +1,509 @@
+// src/main/java/com/djwsj/filemanager/service/ChunkedUploadService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.ChunkedUpload;
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 分片上传（断点续传）服务
+ * <p>
+ * 初始化时在存储目录下的 .chunked 目录中预分配目标文件，每个分片通过 FileChannel 按偏移量直接写入，
+ * 多个连接可以并行上传不同分片。已接收的分片记录在标记文件中（每个分片一个字节），
+ * 服务重启后客户端仍可查询缺失的分片继续上传。
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final String SESSION_DIR = ".chunked";
+    private static final String META_SUFFIX = ".properties";
+    private static final String MARKER_SUFFIX = ".chunks";
+    private static final String DATA_SUFFIX = ".part";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final FileStorageService fileStorageService;
+    private final Path sessionLocation;
+
+    @Value("${file.chunk.default-size:8388608}") // 8MB
+    private int defaultChunkSize;
+
+    @Value("${file.chunk.min-size:262144}") // 256KB
+    private int minChunkSize;
+
+    @Value("${file.chunk.max-size:67108864}") // 64MB
+    private int maxChunkSize;
+
+    @Value("${file.chunk.session-ttl-hours:48}")
+    private long sessionTtlHours;
+
+    // 活跃的上传会话（按需从磁盘恢复）
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(FileStorageService fileStorageService) throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.sessionLocation = fileStorageService.getFileStorageLocation().resolve(SESSION_DIR);
+        Files.createDirectories(this.sessionLocation);
+    }
+
+    /**
+     * 初始化分片上传会话，预分配目标文件
+     */
+    public ChunkedUpload initUpload(String originalFileName, long totalSize, Integer chunkSize,
+                                    FileCategory category, String uploadUser) {
+        if (!StringUtils.hasText(originalFileName)) {
+            throw new IllegalArgumentException("文件名不能为空");
+        }
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("文件大小必须大于0");
+        }
+        try {
+            originalFileName = fileStorageService.sanitizeFileName(originalFileName);
+            fileStorageService.validateUpload(originalFileName, totalSize);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+
+        int effectiveChunkSize = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (effectiveChunkSize < minChunkSize || effectiveChunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("分片大小必须在 " + minChunkSize + " 到 " + maxChunkSize + " 字节之间");
+        }
+
+        long chunkCount = (totalSize + effectiveChunkSize - 1) / effectiveChunkSize;
+        if (chunkCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("分片数量过多，请增大分片大小");
+        }
+
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        UploadSession session = new UploadSession(uploadId, originalFileName, totalSize, effectiveChunkSize,
+                (int) chunkCount, category, uploadUser, LocalDateTime.now());
+
+        try {
+            // 预分配目标文件（稀疏文件），分片可以按任意顺序写入对应偏移
+            try (FileChannel data = FileChannel.open(dataPath(uploadId),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                if (totalSize > 0) {
+                    data.write(ByteBuffer.allocate(1), totalSize - 1);
+                }
+            }
+            try (FileChannel marker = FileChannel.open(markerPath(uploadId),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                marker.write(ByteBuffer.allocate(1), chunkCount - 1);
+            }
+            writeMetadata(session);
+            session.open(dataPath(uploadId), markerPath(uploadId));
+        } catch (IOException e) {
+            deleteSessionFiles(uploadId);
+            throw new RuntimeException("无法创建上传会话: " + originalFileName, e);
+        }
+
+        sessions.put(uploadId, session);
+        return session.toChunkedUpload();
+    }
+
+    /**
+     * 写入一个分片（可并发调用，同一分片重复上传会覆盖原内容）
+     * 重传已接收的分片时先清除接收标记，完整写入后才重新标记；写入失败的分片保持未接收，需要再次上传
+     */
+    public ChunkedUpload writeChunk(String uploadId, int chunkIndex, InputStream input) {
+        UploadSession session = requireSession(uploadId);
+
+        if (chunkIndex < 0 || chunkIndex >= session.totalChunks) {
+            throw new IllegalArgumentException("分片序号超出范围: " + chunkIndex);
+        }
+
+        long offset = (long) chunkIndex * session.chunkSize;
+        long expectedLength = Math.min(session.chunkSize, session.totalSize - offset);
+
+        boolean completed = false;
+        session.lock.readLock().lock();
+        try {
+            session.ensureOpen();
+            session.clearReceived(chunkIndex);
+
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            long written = 0;
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                if (written + read > expectedLength) {
+                    throw new IllegalArgumentException("分片 " + chunkIndex + " 超出预期长度 " + expectedLength);
+                }
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                long position = offset + written;
+                while (byteBuffer.hasRemaining()) {
+                    position += session.data.write(byteBuffer, position);
+                }
+                written += read;
+            }
+
+            if (written != expectedLength) {
+                throw new IllegalArgumentException("分片 " + chunkIndex + " 长度不完整: 期望 " + expectedLength
+                        + " 字节，实际 " + written + " 字节");
+            }
+
+            session.markReceived(chunkIndex);
+            completed = true;
+            return session.toChunkedUpload();
+
+        } catch (IOException e) {
+            throw new RuntimeException("写入分片失败: " + uploadId + "#" + chunkIndex, e);
+        } finally {
+            if (!completed) {
+                // 同一分片的另一次并发上传可能已经标记为接收，而这次写了一半
+                clearQuietly(session, chunkIndex);
+            }
+            session.lock.readLock().unlock();
+        }
+    }
+
+    private void clearQuietly(UploadSession session, int chunkIndex) {
+        try {
+            session.clearReceived(chunkIndex);
+        } catch (IOException | RuntimeException e) {
+            log.warn("清除分片接收标记失败: {}#{} - {}", session.uploadId, chunkIndex, e.toString());
+        }
+    }
+
+    /**
+     * 查询上传状态（包含缺失的分片，用于断点续传）
+     */
+    public ChunkedUpload getStatus(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        return session != null ? session.toChunkedUpload() : null;
+    }
+
+    /**
+     * 完成上传：所有分片就绪后将文件移入存储目录
+     */
+    public FileInfo completeUpload(String uploadId) {
+        UploadSession session = requireSession(uploadId);
+
+        session.lock.writeLock().lock();
+        try {
+            session.ensureOpen();
+
+            List<Integer> missing = session.missingChunks();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("仍有 " + missing.size() + " 个分片未上传");
+            }
+
+            session.data.force(true);
+
+            // 存储成功后才关闭会话：存储失败（磁盘已满等）时会话保持可用，客户端可以重试完成请求
+            FileInfo fileInfo = fileStorageService.storeCompletedFile(dataPath(uploadId),
+                    session.originalFilename, session.category, session.uploadUser);
+
+            session.close();
+            sessions.remove(uploadId);
+            deleteSessionFiles(uploadId);
+            return fileInfo;
+
+        } catch (IOException e) {
+            throw new RuntimeException("合并上传文件失败: " + uploadId, e);
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 取消上传并删除临时文件
+     */
+    public boolean abortUpload(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (session == null) {
+            return false;
+        }
+
+        session.lock.writeLock().lock();
+        try {
+            session.close();
+            sessions.remove(uploadId);
+            deleteSessionFiles(uploadId);
+            return true;
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 定期清理超过有效期未活动的上传会话
+     */
+    @Scheduled(fixedDelayString = "${file.chunk.cleanup-interval-ms:3600000}")
+    public void cleanupExpiredSessions() {
+        Instant expireBefore = Instant.now().minus(Duration.ofHours(sessionTtlHours));
+        try (Stream<Path> stream = Files.list(sessionLocation)) {
+            stream.filter(path -> path.getFileName().toString().endsWith(META_SUFFIX))
+                    .forEach(path -> {
+                        String fileName = path.getFileName().toString();
+                        String uploadId = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+                        try {
+                            Path marker = markerPath(uploadId);
+                            Path activity = Files.exists(marker) ? marker : path;
+                            if (Files.getLastModifiedTime(activity).toInstant().isBefore(expireBefore)) {
+                                abortUpload(uploadId);
+                            }
+                        } catch (IOException e) {
+                            log.warn("清理上传会话失败: {} - {}", uploadId, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("无法列出上传会话: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void closeSessions() {
+        sessions.values().forEach(UploadSession::close);
+    }
+
+    // ==================== 会话持久化 ====================
+
+    private UploadSession requireSession(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        if (session == null) {
+            throw new IllegalArgumentException("上传会话不存在或已过期: " + uploadId);
+        }
+        return session;
+    }
+
+    private UploadSession findSession(String uploadId) {
+        if (uploadId == null || !uploadId.matches("[0-9a-f]{32}")) {
+            return null;
+        }
+        UploadSession session = sessions.get(uploadId);
+        if (session != null) {
+            return session;
+        }
+        // computeIfAbsent 对同一个 uploadId 已经是原子的，不需要再对整个表加锁
+        return sessions.computeIfAbsent(uploadId, this::loadSession);
+    }
+
+    /**
+     * 从磁盘恢复上传会话（服务重启后断点续传）
+     */
+    private UploadSession loadSession(String uploadId) {
+        Path metaPath = metaPath(uploadId);
+        if (!Files.exists(metaPath) || !Files.exists(dataPath(uploadId)) || !Files.exists(markerPath(uploadId))) {
+            return null;
+        }
+
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(metaPath, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (IOException e) {
+            log.warn("无法读取上传会话: {} - {}", uploadId, e.getMessage());
+            return null;
+        }
+
+        String category = props.getProperty("category");
+        UploadSession session = new UploadSession(uploadId,
+                props.getProperty("originalFilename"),
+                Long.parseLong(props.getProperty("totalSize")),
+                Integer.parseInt(props.getProperty("chunkSize")),
+                Integer.parseInt(props.getProperty("totalChunks")),
+                category != null ? FileCategory.valueOf(category) : null,
+                props.getProperty("uploadUser"),
+                LocalDateTime.parse(props.getProperty("createdTime")));
+
+        try {
+            byte[] markers = Files.readAllBytes(markerPath(uploadId));
+            for (int i = 0; i < markers.length && i < session.totalChunks; i++) {
+                if (markers[i] != 0) {
+                    session.received.set(i);
+                }
+            }
+            session.open(dataPath(uploadId), markerPath(uploadId));
+        } catch (IOException e) {
+            log.warn("无法恢复上传会话: {} - {}", uploadId, e.getMessage());
+            return null;
+        }
+        return session;
+    }
+
+    private void writeMetadata(UploadSession session) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("originalFilename", session.originalFilename);
+        props.setProperty("totalSize", String.valueOf(session.totalSize));
+        props.setProperty("chunkSize", String.valueOf(session.chunkSize));
+        props.setProperty("totalChunks", String.valueOf(session.totalChunks));
+        if (session.category != null) {
+            props.setProperty("category", session.category.name());
+        }
+        if (session.uploadUser != null) {
+            props.setProperty("uploadUser", session.uploadUser);
+        }
+        props.setProperty("createdTime", session.createdTime.toString());
+
+        try (Writer writer = Files.newBufferedWriter(metaPath(session.uploadId), StandardCharsets.UTF_8)) {
+            props.store(writer, "chunked upload session");
+        }
+    }
+
+    private void deleteSessionFiles(String uploadId) {
+        for (Path path : new Path[]{dataPath(uploadId), markerPath(uploadId), metaPath(uploadId)}) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除上传临时文件失败: {} - {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private Path metaPath(String uploadId) {
+        return sessionLocation.resolve(uploadId + META_SUFFIX);
+    }
+
+    private Path markerPath(String uploadId) {
+        return sessionLocation.resolve(uploadId + MARKER_SUFFIX);
+    }
+
+    private Path dataPath(String uploadId) {
+        return sessionLocation.resolve(uploadId + DATA_SUFFIX);
+    }
+
+    /**
+     * 单个上传会话的运行时状态
+     * 分片写入持有读锁（互相并行），完成/取消持有写锁（等待进行中的分片写完）
+     */
+    private static class UploadSession {
+        private final String uploadId;
+        private final String originalFilename;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int totalChunks;
+        private final FileCategory category;
+        private final String uploadUser;
+        private final LocalDateTime createdTime;
+
+        private final BitSet received;
+        // 保护 received 与标记文件（持锁期间写标记文件，不用 synchronized，避免虚拟线程占住载体线程）
+        private final ReentrantLock receivedLock = new ReentrantLock();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private FileChannel data;
+        private FileChannel marker;
+        private volatile boolean closed;
+
+        UploadSession(String uploadId, String originalFilename, long totalSize, int chunkSize, int totalChunks,
+                      FileCategory category, String uploadUser, LocalDateTime createdTime) {
+            this.uploadId = uploadId;
+            this.originalFilename = originalFilename;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.totalChunks = totalChunks;
+            this.category = category;
+            this.uploadUser = uploadUser;
+            this.createdTime = createdTime;
+            this.received = new BitSet(totalChunks);
+        }
+
+        void open(Path dataPath, Path markerPath) throws IOException {
+            this.data = FileChannel.open(dataPath, StandardOpenOption.WRITE);
+            this.marker = FileChannel.open(markerPath, StandardOpenOption.WRITE);
+        }
+
+        void ensureOpen() {
+            if (closed) {
+                throw new IllegalArgumentException("上传会话已结束: " + uploadId);
+            }
+        }
+
+        void markReceived(int chunkIndex) throws IOException {
+            // 先写标记文件，保证重启后能够识别已接收的分片；与 clearReceived 互斥，标记文件与内存保持一致
+            receivedLock.lock();
+            try {
+                marker.write(ByteBuffer.wrap(new byte[]{1}), chunkIndex);
+                received.set(chunkIndex);
+            } finally {
+                receivedLock.unlock();
+            }
+        }
+
+        /**
+         * 清除分片的接收标记（先清内存再写标记文件），之后 missingChunks 不会把正在重写的分片报告为已接收
+         */
+        void clearReceived(int chunkIndex) throws IOException {
+            receivedLock.lock();
+            try {
+                if (!received.get(chunkIndex)) {
+                    return;
+                }
+                received.clear(chunkIndex);
+                marker.write(ByteBuffer.wrap(new byte[]{0}), chunkIndex);
+            } finally {
+                receivedLock.unlock();
+            }
+        }
+
+        List<Integer> missingChunks() {
+            List<Integer> missing = new ArrayList<>();
+            receivedLock.lock();
+            try {
+                for (int i = received.nextClearBit(0); i < totalChunks; i = received.nextClearBit(i + 1)) {
+                    missing.add(i);
+                }
+            } finally {
+                receivedLock.unlock();
+            }
+            return missing;
+        }
+
+        void close() {
+            closed = true;
+            for (FileChannel channel : new FileChannel[]{data, marker}) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // 关闭失败不影响后续清理
+                    }
+                }
+            }
+        }
+
+        ChunkedUpload toChunkedUpload() {
+            ChunkedUpload upload = new ChunkedUpload();
+            upload.setUploadId(uploadId);
+            upload.setOriginalFilename(originalFilename);
+            upload.setTotalSize(totalSize);
+            upload.setChunkSize(chunkSize);
+            upload.setTotalChunks(totalChunks);
+            List<Integer> missing = missingChunks();
+            upload.setMissingChunks(missing);
+            upload.setReceivedChunks(totalChunks - missing.size());
+            upload.setCategory(category);
+            upload.setUploadUser(uploadUser);
+            upload.setCreatedTime(createdTime);
+            return upload;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+// src/main/java/com/djwsj/filemanager/service/ContentTypeDetector.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.util.ExtensionTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按文件头部的特征字节（magic number）识别 MIME 类型
+ * <p>
+ * 特征字节在启动时编译成一棵前缀树（支持任意字节的通配位置），识别时只读取文件开头
+ * file.content-detection.header-bytes 个字节，读取使用池化的直接缓冲区。
+ * 识别结果保存在索引记录的 fileType 中，下载时直接使用，不再按请求探测。
+ * <p>
+ * 内容优先于扩展名：扩展名声称的格式有特征字节但内容不匹配时（例如改名为 .jpg 的 PDF），以内容为准；
+ * 只有两个字节的弱特征（BM、MZ、MP3 帧同步、gzip 等）普通文本也可能碰巧以它们开头，只在扩展名一致时采用；
+ * zip、OLE 等容器格式再按扩展名细分（docx、xlsx、doc 等）。没有特征字节的文本格式（txt、csv、json 等）
+ * 在内容不含 NUL 字节时按扩展名确定类型。都无法确定时为 text/plain（不含 NUL 字节）或 application/octet-stream，
+ * 上传时客户端声明的 Content-Type 不参与识别。
+ */
+@Component
+public class ContentTypeDetector {
+
+    public static final String GENERIC_TYPE = "application/octet-stream";
+
+    private static final String ZIP = "application/zip";
+    private static final String OLE = "application/x-ole-storage";
+    private static final String MATROSKA = "video/x-matroska";
+    private static final String MP4 = "video/mp4";
+
+    // 签名语法：两位十六进制表示一个字节，?? 表示任意字节，'...' 表示 ASCII 字符串
+    private static final String[][] SIGNATURES = {
+            {"image/jpeg", "FF D8 FF"},
+            {"image/png", "89 'PNG' 0D 0A 1A 0A"},
+            {"image/gif", "'GIF87a'"},
+            {"image/gif", "'GIF89a'"},
+            {"image/bmp", "'BM'"},
+            {"image/webp", "'RIFF' ?? ?? ?? ?? 'WEBP'"},
+            {"image/vnd.microsoft.icon", "00 00 01 00"},
+            {"application/pdf", "'%PDF-'"},
+            {ZIP, "'PK' 03 04"},
+            {ZIP, "'PK' 05 06"},
+            {OLE, "D0 CF 11 E0 A1 B1 1A E1"},
+            {"application/vnd.rar", "'Rar!' 1A 07"},
+            {"application/x-7z-compressed", "'7z' BC AF 27 1C"},
+            {"application/gzip", "1F 8B"},
+            {"application/x-bzip2", "'BZh'"},
+            {MP4, "?? ?? ?? ?? 'ftyp'"},
+            {"video/quicktime", "?? ?? ?? ?? 'ftypqt'"},
+            {"audio/mp4", "?? ?? ?? ?? 'ftypM4A'"},
+            {"video/x-msvideo", "'RIFF' ?? ?? ?? ?? 'AVI '"},
+            {"video/x-ms-wmv", "30 26 B2 75 8E 66 CF 11"},
+            {"video/x-flv", "'FLV' 01"},
+            {MATROSKA, "1A 45 DF A3"},
+            {"audio/mpeg", "'ID3'"},
+            {"audio/mpeg", "FF FB"},
+            {"audio/mpeg", "FF F3"},
+            {"audio/mpeg", "FF F2"},
+            {"audio/aac", "FF F1"},
+            {"audio/aac", "FF F9"},
+            {"audio/wav", "'RIFF' ?? ?? ?? ?? 'WAVE'"},
+            {"audio/ogg", "'OggS'"},
+            {"audio/flac", "'fLaC'"},
+            {"application/vnd.microsoft.portable-executable", "'MZ'"},
+    };
+
+    // 固定字节数不超过该值的特征是弱特征，只在扩展名一致时采用
+    private static final int WEAK_SIGNATURE_BYTES = 2;
+
+    // tar 的 "ustar" 标记在第 257 字节
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    private static final Map<String, String> EXTENSION_TYPES = Map.ofEntries(
+            Map.entry("txt", "text/plain"), Map.entry("log", "text/plain"), Map.entry("md", "text/markdown"),
+            Map.entry("csv", "text/csv"), Map.entry("json", "application/json"), Map.entry("xml", "application/xml"),
+            Map.entry("html", "text/html"), Map.entry("css", "text/css"), Map.entry("js", "text/javascript"),
+            Map.entry("java", "text/x-java-source"), Map.entry("py", "text/x-python"), Map.entry("c", "text/x-c"),
+            Map.entry("cpp", "text/x-c"), Map.entry("h", "text/x-c"), Map.entry("svg", "image/svg+xml"),
+            Map.entry("bat", "application/x-bat"), Map.entry("cmd", "application/x-bat"),
+            Map.entry("jpg", "image/jpeg"), Map.entry("jpeg", "image/jpeg"), Map.entry("png", "image/png"),
+            Map.entry("gif", "image/gif"), Map.entry("bmp", "image/bmp"), Map.entry("webp", "image/webp"),
+            Map.entry("ico", "image/vnd.microsoft.icon"), Map.entry("pdf", "application/pdf"),
+            Map.entry("doc", "application/msword"),
+            Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+            Map.entry("xls", "application/vnd.ms-excel"),
+            Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+            Map.entry("ppt", "application/vnd.ms-powerpoint"),
+            Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+            Map.entry("zip", ZIP), Map.entry("jar", "application/java-archive"), Map.entry("msi", "application/x-msi"),
+            Map.entry("rar", "application/vnd.rar"), Map.entry("7z", "application/x-7z-compressed"),
+            Map.entry("gz", "application/gzip"), Map.entry("tar", "application/x-tar"),
+            Map.entry("bz2", "application/x-bzip2"), Map.entry("mp4", MP4), Map.entry("mov", "video/quicktime"),
+            Map.entry("avi", "video/x-msvideo"), Map.entry("wmv", "video/x-ms-wmv"), Map.entry("flv", "video/x-flv"),
+            Map.entry("mkv", MATROSKA), Map.entry("webm", "video/webm"), Map.entry("mp3", "audio/mpeg"),
+            Map.entry("wav", "audio/wav"), Map.entry("ogg", "audio/ogg"), Map.entry("flac", "audio/flac"),
+            Map.entry("aac", "audio/aac"), Map.entry("m4a", "audio/mp4"),
+            Map.entry("exe", "application/vnd.microsoft.portable-executable")
+    );
+
+    // 容器格式 -> 可以按扩展名细分出的类型
+    private static final Map<String, Set<String>> CONTAINER_TYPES = Map.of(
+            ZIP, Set.of(EXTENSION_TYPES.get("docx"), EXTENSION_TYPES.get("xlsx"), EXTENSION_TYPES.get("pptx"),
+                    EXTENSION_TYPES.get("jar")),
+            OLE, Set.of(EXTENSION_TYPES.get("doc"), EXTENSION_TYPES.get("xls"), EXTENSION_TYPES.get("ppt"),
+                    EXTENSION_TYPES.get("msi")),
+            MATROSKA, Set.of(EXTENSION_TYPES.get("webm")),
+            MP4, Set.of(EXTENSION_TYPES.get("m4a"), EXTENSION_TYPES.get("mov"))
+    );
+
+    private final Node root = new Node();
+    private final ExtensionTable<String> extensionTypes = ExtensionTable.of(EXTENSION_TYPES);
+    // 能由特征字节识别的类型：扩展名是这些类型但内容不匹配时，不采用扩展名
+    private final Set<String> signatureTypes = new HashSet<>();
+
+    private final int headerBytes;
+    private final int bufferPoolSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final AtomicInteger allocatedBuffers = new AtomicInteger();
+
+    public ContentTypeDetector(@Value("${file.content-detection.header-bytes:4096}") int headerBytes,
+                               @Value("${file.content-detection.buffer-pool-size:16}") int bufferPoolSize) {
+        this.headerBytes = Math.max(headerBytes, TAR_MAGIC_OFFSET + 8);
+        this.bufferPoolSize = Math.max(1, bufferPoolSize);
+        this.buffers = new ArrayBlockingQueue<>(this.bufferPoolSize);
+        for (String[] signature : SIGNATURES) {
+            add(signature[0], parse(signature[1]));
+        }
+        int[] tar = new int[TAR_MAGIC_OFFSET + 5];
+        Arrays.fill(tar, 0, TAR_MAGIC_OFFSET, WILDCARD);
+        System.arraycopy(parse("'ustar'"), 0, tar, TAR_MAGIC_OFFSET, 5);
+        add("application/x-tar", tar);
+        CONTAINER_TYPES.values().forEach(signatureTypes::addAll);
+    }
+
+    /**
+     * 识别磁盘上的文件（原始内容）
+     *
+     * @param fileName 用于容器格式细分和文本格式的文件名（原始文件名或存储文件名）
+     */
+    public String detect(Path file, String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return detect(channel, fileName);
+        }
+    }
+
+    /**
+     * 识别输入流的内容（例如压缩存储的文件解码后的内容），不关闭输入流
+     */
+    public String detect(InputStream content, String fileName) throws IOException {
+        return detect(Channels.newChannel(content), fileName);
+    }
+
+    /**
+     * 只按扩展名推断类型（内容不可用时），未知扩展名返回 null
+     */
+    public String typeForName(String fileName) {
+        int start = ExtensionTable.extensionStart(fileName);
+        return start >= 0 ? extensionTypes.get(fileName, start, fileName.length()) : null;
+    }
+
+    private String detect(ReadableByteChannel channel, String fileName) throws IOException {
+        ByteBuffer buffer = acquire();
+        try {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // 读满缓冲区或读到文件末尾
+            }
+            buffer.flip();
+            return resolve(buffer, fileName);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private String resolve(ByteBuffer header, String fileName) {
+        Node matched = match(root, header, 0);
+        String byName = typeForName(fileName);
+        String detected = matched != null && (!matched.weak || matched.type.equals(byName)) ? matched.type : null;
+        if (detected != null) {
+            Set<String> refinements = CONTAINER_TYPES.get(detected);
+            return byName != null && refinements != null && refinements.contains(byName) ? byName : detected;
+        }
+        if (byName != null && !signatureTypes.contains(byName) && isText(header)) {
+            return byName;
+        }
+        // 不采用客户端声明的类型（可以伪造，例如内容为 HTML 的 .jpg 声明为 text/html）
+        return header.hasRemaining() && isText(header) ? "text/plain" : GENERIC_TYPE;
+    }
+
+    /**
+     * 沿前缀树匹配，返回最长的匹配结果（带类型的节点）；同一位置优先精确字节，再尝试通配
+     */
+    private static Node match(Node node, ByteBuffer header, int depth) {
+        Node result = null;
+        if (depth < header.limit()) {
+            Node child = node.child(header.get(depth) & 0xFF);
+            if (child != null) {
+                result = match(child, header, depth + 1);
+            }
+            if (result == null && node.any != null) {
+                result = match(node.any, header, depth + 1);
+            }
+        }
+        return result != null ? result : node.type != null ? node : null;
+    }
+
+    private static boolean isText(ByteBuffer header) {
+        for (int i = 0; i < header.limit(); i++) {
+            if (header.get(i) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 直接缓冲区按需创建，最多 buffer-pool-size 个；都在使用中时用临时的堆内缓冲区，不额外占用直接内存
+     */
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocatedBuffers.getAndIncrement() < bufferPoolSize) {
+            return ByteBuffer.allocateDirect(headerBytes);
+        }
+        allocatedBuffers.decrementAndGet();
+        return ByteBuffer.allocate(headerBytes);
+    }
+
+    private void release(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            buffer.clear();
+            buffers.offer(buffer);
+        }
+    }
+
+    // ==================== 前缀树 ====================
+
+    private static final int WILDCARD = -1;
+
+    private static final class Node {
+        private int[] keys = new int[0];
+        private Node[] children = new Node[0];
+        private Node any;
+        private String type;
+        private boolean weak;
+
+        Node child(int value) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == value) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node getOrCreate(int value) {
+            if (value == WILDCARD) {
+                return any != null ? any : (any = new Node());
+            }
+            Node child = child(value);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = value;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+
+    private void add(String type, int[] signature) {
+        Node node = root;
+        int fixedBytes = 0;
+        for (int value : signature) {
+            node = node.getOrCreate(value);
+            if (value != WILDCARD) {
+                fixedBytes++;
+            }
+        }
+        if (node.type == null) {
+            node.type = type;
+            node.weak = fixedBytes <= WEAK_SIGNATURE_BYTES;
+        }
+        signatureTypes.add(type);
+    }
+
+    private static int[] parse(String signature) {
+        List<Integer> values = new ArrayList<>();
+        int i = 0;
+        while (i < signature.length()) {
+            char c = signature.charAt(i);
+            if (c == ' ') {
+                i++;
+            } else if (c == '\'') {
+                int end = signature.indexOf('\'', i + 1);
+                for (int j = i + 1; j < end; j++) {
+                    values.add((int) signature.charAt(j));
+                }
+                i = end + 1;
+            } else if (c == '?') {
+                values.add(WILDCARD);
+                i += 2;
+            } else {
+                values.add(Integer.parseInt(signature.substring(i, i + 2), 16));
+                i += 2;
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,203 @@
+// src/main/java/com/djwsj/filemanager/service/DiskCache.java
+package com.djwsj.filemanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 按总字节数限制大小、按最近访问淘汰的磁盘缓存（缩略图、预压缩文件等派生文件）
+ * <p>
+ * 每个缓存项是目录下的一个文件，缓存项名称由调用方决定（应包含原文件的修改时间，原文件变化后自然失效）。
+ * 访问时更新文件修改时间，重启后按修改时间恢复淘汰顺序。
+ */
+class DiskCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCache.class);
+
+    /**
+     * 把缓存内容写入给定的临时文件
+     */
+    @FunctionalInterface
+    interface Writer {
+        void write(Path target) throws IOException;
+    }
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // 缓存文件 -> 字节数，按访问顺序排列（最久未访问的在前）
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long cachedBytes;
+
+    DiskCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadEntries();
+    }
+
+    /**
+     * 查找缓存项，命中时更新访问顺序，未命中返回 null
+     */
+    Path get(String name) {
+        Path cached = directory.resolve(name);
+        lock.lock();
+        try {
+            if (entries.get(cached) == null) {
+                return null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            return cached;
+        } catch (IOException e) {
+            // 已被淘汰
+            forget(cached);
+            return null;
+        }
+    }
+
+    /**
+     * 打开缓存项用于读取，未命中返回 null
+     * <p>
+     * 在持有锁时打开：淘汰也在锁内删除文件，因此打开的缓存项不会在打开前被删除，打开后即使被淘汰也能读完。
+     */
+    FileChannel open(String name) {
+        Path cached = directory.resolve(name);
+        FileChannel channel;
+        lock.lock();
+        try {
+            if (entries.get(cached) == null) {
+                return null;
+            }
+            channel = FileChannel.open(cached, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // 文件已被外部删除
+            cachedBytes -= entries.remove(cached);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("更新缓存文件访问时间失败: {} - {}", cached, e.getMessage());
+        }
+        return channel;
+    }
+
+    /**
+     * 生成并登记缓存项：先写临时文件再重命名，并发生成同一项时最多重复写入，不会读到写了一半的文件
+     */
+    Path put(String name, Writer writer) throws IOException {
+        Path target = directory.resolve(name);
+        Path temp = Files.createTempFile(directory, "cache-", TEMP_SUFFIX);
+        try {
+            writer.write(temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        long bytes = Files.size(target);
+        lock.lock();
+        try {
+            Long previous = entries.put(target, bytes);
+            cachedBytes += bytes - (previous != null ? previous : 0);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+        return target;
+    }
+
+    Map<String, Object> getInfo() {
+        lock.lock();
+        try {
+            Map<String, Object> info = new HashMap<>();
+            info.put("entries", entries.size());
+            info.put("bytes", cachedBytes);
+            info.put("maxBytes", maxBytes);
+            return info;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 启动时登记已有的缓存文件，按文件修改时间（生成或最后访问时间）排列淘汰顺序
+     */
+    private void loadEntries() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        List<Map.Entry<Path, BasicFileAttributes>> existing = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                // 生成过程中进程退出留下的临时文件
+                Files.deleteIfExists(file);
+                continue;
+            }
+            existing.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
+        }
+        existing.sort(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()));
+        for (Map.Entry<Path, BasicFileAttributes> entry : existing) {
+            entries.put(entry.getKey(), entry.getValue().size());
+            cachedBytes += entry.getValue().size();
+        }
+        evict();
+    }
+
+    private void forget(Path cached) {
+        lock.lock();
+        try {
+            Long previous = entries.remove(cached);
+            if (previous != null) {
+                cachedBytes -= previous;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的缓存文件直到总大小不超过上限，调用方需持有锁（启动阶段除外）
+     */
+    private void evict() {
+        Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<Path, Long> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(eldest.getKey());
+            } catch (IOException e) {
+                log.warn("删除缓存文件失败: {} - {}", eldest.getKey(), e.getMessage());
+            }
+            cachedBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+}
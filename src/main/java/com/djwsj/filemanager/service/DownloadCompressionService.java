@@ -0,0 +1,217 @@
+// src/main/java/com/djwsj/filemanager/service/DownloadCompressionService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 下载压缩：客户端接受 gzip 时，可压缩的文件以 Content-Encoding: gzip 发送
+ * <p>
+ * 图片、视频、音频、压缩包本身已经压缩过，不再压缩；file.compression.excluded-extensions 中的格式
+ * （pdf、Office 文档等内部已压缩的格式）同样跳过。
+ * 同一文件被压缩下载达到 file.compression.cache-after-hits 次后，在后台把压缩结果保存到存储目录下的 .gzip 目录中，
+ * 之后的下载直接发送缓存文件，不再重复压缩；缓存按原文件修改时间区分版本，总大小受 file.compression.cache-max-bytes 限制。
+ * <p>
+ * JSON 接口响应的压缩由 Tomcat 完成（server.compression.*）。
+ */
+@Service
+public class DownloadCompressionService {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadCompressionService.class);
+
+    private static final String GZIP_DIR = ".gzip";
+    private static final String GZIP = "gzip";
+    private static final int GENERATE_QUEUE_CAPACITY = 100;
+    private static final Set<FileCategory> PRECOMPRESSED_CATEGORIES =
+            EnumSet.of(FileCategory.IMAGE, FileCategory.VIDEO, FileCategory.AUDIO, FileCategory.ARCHIVE);
+
+    @Value("${file.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.compression.min-size:1024}")
+    private long minSize;
+
+    @Value("${file.compression.cache-after-hits:2}")
+    private int cacheAfterHits;
+
+    private final Set<String> excludedExtensions;
+    private final DiskCache cache;
+
+    // 尚未缓存的文件被压缩下载的次数
+    private final Cache<String, AtomicInteger> hits = Caffeine.newBuilder().maximumSize(10_000).build();
+    // 后台生成压缩缓存，以及正在生成的缓存项（同一项只生成一次）
+    private final ThreadPoolExecutor generator;
+    private final Set<String> generating = ConcurrentHashMap.newKeySet();
+
+    public DownloadCompressionService(FileStorageService fileStorageService,
+                                      @Value("${file.compression.excluded-extensions:pdf,docx,xlsx,pptx,jar}") String[] excludedExtensions,
+                                      @Value("${file.compression.cache-max-bytes:536870912}") long cacheMaxBytes) throws IOException {
+        this.excludedExtensions = new HashSet<>();
+        for (String extension : excludedExtensions) {
+            if (StringUtils.hasText(extension)) {
+                this.excludedExtensions.add(extension.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.cache = new DiskCache(fileStorageService.getFileStorageLocation().resolve(GZIP_DIR), cacheMaxBytes);
+        this.generator = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(GENERATE_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gzip-cache");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.generator.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 文件是否值得压缩（与客户端是否接受无关）
+     */
+    public boolean isCompressible(FileInfo fileInfo, long length) {
+        if (!enabled || length < minSize || PRECOMPRESSED_CATEGORIES.contains(fileInfo.getCategory())) {
+            return false;
+        }
+        String extension = fileInfo.getExtension();
+        return extension == null || !excludedExtensions.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Accept-Encoding 是否包含 gzip（或 *），且 q 值不为 0
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : StringUtils.commaDelimitedListToStringArray(headers.nextElement())) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (!GZIP.equalsIgnoreCase(name) && !"*".equals(name)) {
+                    continue;
+                }
+                boolean refused = false;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            refused = Double.parseDouble(parameter.substring(2)) <= 0;
+                        } catch (NumberFormatException e) {
+                            refused = true;
+                        }
+                    }
+                }
+                if (!refused) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 打开已缓存的压缩文件，未缓存时返回 null（由调用方边读边压缩）
+     * <p>
+     * 文件下载次数达到阈值时在后台生成缓存，本次请求仍然边读边压缩，不必等待整个文件压缩完成。
+     */
+    public FileChannel openCachedVariant(String fileName, Path source, long lastModified) {
+        String name = fileName + "." + Long.toHexString(lastModified) + ".gz";
+        FileChannel cached = cache.open(name);
+        if (cached != null) {
+            return cached;
+        }
+        AtomicInteger count = hits.get(fileName, key -> new AtomicInteger());
+        if (count.incrementAndGet() >= cacheAfterHits && generating.add(name)) {
+            hits.invalidate(fileName);
+            try {
+                generator.execute(() -> generate(name, source, lastModified));
+            } catch (RejectedExecutionException e) {
+                // 队列已满或正在关闭，之后的下载再次计数
+                generating.remove(name);
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        generator.shutdownNow();
+    }
+
+    private void generate(String name, Path source, long lastModified) {
+        try {
+            cache.put(name, target -> {
+                try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(target), 64 * 1024)) {
+                    Files.copy(source, output);
+                }
+                // 压缩期间原文件被覆盖时放弃，避免旧版本的缓存名称对应新内容
+                if (Files.getLastModifiedTime(source).toMillis() != lastModified) {
+                    throw new IOException("原文件在压缩过程中被修改");
+                }
+            });
+        } catch (IOException e) {
+            log.warn("生成压缩缓存失败: {} - {}", name, e.getMessage());
+        } finally {
+            generating.remove(name);
+        }
+    }
+
+    /**
+     * 把文件压缩后写入输出流（不关闭输出流）
+     *
+     * @return 写出的压缩后字节数
+     */
+    public static long writeCompressed(Path source, OutputStream output) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(output);
+        GZIPOutputStream gzip = new GZIPOutputStream(counting, 64 * 1024);
+        Files.copy(source, gzip);
+        gzip.finish();
+        return counting.count;
+    }
+
+    public Map<String, Object> getCacheInfo() {
+        return cache.getInfo();
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
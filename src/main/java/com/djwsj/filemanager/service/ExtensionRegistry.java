@@ -0,0 +1,75 @@
+// src/main/java/com/djwsj/filemanager/service/ExtensionRegistry.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.util.ExtensionTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 扩展名登记表：启动时由 file.allowed-extensions 与 {@link FileCategory} 的扩展名生成，之后不再变化
+ * <p>
+ * 上传校验、分类、列表中的扩展名都从这里查找；查找直接在文件名上进行，已登记的扩展名不创建新字符串。
+ * 分类与 {@link FileCategory#fromExtension(String)} 一致，允许上传但不属于任何分类的扩展名归为 OTHER。
+ */
+@Component
+public class ExtensionRegistry {
+
+    private final ExtensionTable<Entry> entries;
+
+    public ExtensionRegistry(@Value("${file.allowed-extensions:jpg,jpeg,png,gif,pdf,doc,docx,xls,xlsx,txt,zip,rar,mp4,avi,mp3,wav}")
+                             String[] allowedExtensions) {
+        Map<String, Entry> map = new LinkedHashMap<>();
+        for (String extension : allowedExtensions) {
+            if (StringUtils.hasText(extension)) {
+                String key = extension.trim().toLowerCase(Locale.ROOT);
+                map.put(key, new Entry(FileCategory.fromExtension(key), true));
+            }
+        }
+        for (FileCategory category : FileCategory.values()) {
+            for (String extension : category.getExtensions()) {
+                map.putIfAbsent(extension, new Entry(category, false));
+            }
+        }
+        this.entries = ExtensionTable.of(map);
+    }
+
+    /**
+     * 文件名的小写扩展名，没有扩展名时返回 null
+     */
+    public String extensionOf(String fileName) {
+        return entries.extensionOf(fileName);
+    }
+
+    public boolean isAllowed(String extension) {
+        Entry entry = entries.get(extension);
+        return entry != null && entry.allowed;
+    }
+
+    public FileCategory categoryOf(String extension) {
+        Entry entry = entries.get(extension);
+        return entry != null ? entry.category : FileCategory.OTHER;
+    }
+
+    public FileCategory categoryOfFile(String fileName) {
+        int start = ExtensionTable.extensionStart(fileName);
+        Entry entry = start >= 0 ? entries.get(fileName, start, fileName.length()) : null;
+        return entry != null ? entry.category : FileCategory.OTHER;
+    }
+
+    private static final class Entry {
+
+        private final FileCategory category;
+        private final boolean allowed;
+
+        Entry(FileCategory category, boolean allowed) {
+            this.category = category;
+            this.allowed = allowed;
+        }
+    }
+}
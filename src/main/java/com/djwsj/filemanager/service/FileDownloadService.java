@@ -0,0 +1,432 @@
+// src/main/java/com/djwsj/filemanager/service/FileDownloadService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.StorageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 文件下载服务
+ * <p>
+ * 支持单段和多段 Range 请求（206 / multipart/byteranges）、If-Range，
+ * 以及基于 ETag / Last-Modified 的条件请求（304 / 412）。
+ * <p>
+ * 超过阈值的完整下载和单段 Range 下载交给 Tomcat 的 sendfile 处理，由内核直接把文件页写入 socket，
+ * 不经过 JVM 堆；容器不支持 sendfile（例如非 NIO 连接器）或多段 Range 时退回普通的流式复制。
+ * <p>
+ * 可压缩的文件在客户端接受 gzip 且不是 Range 请求时压缩发送，见 {@link DownloadCompressionService}。
+ * 压缩存储的文件（{@link StorageCodec}）在客户端接受该编码时原样发送，否则边读边解压。
+ */
+@Service
+public class FileDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileDownloadService.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Tomcat sendfile 请求属性（org.apache.catalina.Globals）
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // 使用 sendfile 的最小字节数，小于 0 表示禁用
+    @Value("${file.download.sendfile-threshold:1048576}") // 1MB
+    private long sendfileThreshold;
+
+    private final FileStorageService fileStorageService;
+    private final DownloadCompressionService compressionService;
+    private final FileMetrics fileMetrics;
+
+    public FileDownloadService(FileStorageService fileStorageService,
+                               DownloadCompressionService compressionService,
+                               FileMetrics fileMetrics) {
+        this.fileStorageService = fileStorageService;
+        this.compressionService = compressionService;
+        this.fileMetrics = fileMetrics;
+    }
+
+    /**
+     * 将文件写入响应，文件不存在时返回 false
+     */
+    public boolean download(String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        FileMetrics.Transfer transfer = fileMetrics.startDownload();
+        try {
+            String outcome = send(fileName, request, response, transfer);
+            transfer.finish(outcome);
+            log.atInfo()
+                    .addKeyValue("file", fileName)
+                    .addKeyValue("outcome", outcome)
+                    .addKeyValue("mode", transfer.getMode())
+                    .addKeyValue("bytes", transfer.getBytes())
+                    .addKeyValue("durationMs", transfer.getDurationMillis())
+                    .log("下载完成");
+            return !FileMetrics.OUTCOME_NOT_FOUND.equals(outcome);
+        } finally {
+            // 写出过程中出错（例如客户端断开）
+            transfer.finish(FileMetrics.OUTCOME_FAILURE);
+        }
+    }
+
+    /**
+     * 写出响应，返回用于监控指标的结果
+     */
+    private String send(String fileName, HttpServletRequest request, HttpServletResponse response,
+                        FileMetrics.Transfer transfer) throws IOException {
+        Path filePath = fileStorageService.resolveFilePath(fileName);
+        FileInfo fileInfo = filePath != null ? fileStorageService.getFileInfo(fileName) : null;
+        if (fileInfo == null) {
+            return FileMetrics.OUTCOME_NOT_FOUND;
+        }
+        transfer.setCategory(fileInfo.getCategory());
+
+        // 一次 stat 得到长度和修改时间，用于生成校验器；压缩存储的文件长度取原始大小
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        StorageCodec codec = fileInfo.getStorageCodec();
+        long length = codec != null ? fileInfo.getSize() : attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        // Range 请求按原始字节处理；压缩后的表示使用不同的 ETag
+        boolean compressible = codec != null || compressionService.isCompressible(fileInfo, length);
+        boolean gzip = compressible && request.getHeader(HttpHeaders.RANGE) == null
+                && DownloadCompressionService.acceptsGzip(request);
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified)
+                + (gzip ? "-gzip" : "") + "\"";
+        if (compressible) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        // Spring 只对非安全方法校验 If-Match / If-Unmodified-Since，下载时需要自行处理
+        if (!preconditionsMet(request, etag, lastModified)) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+            return FileMetrics.OUTCOME_REJECTED;
+        }
+
+        // If-None-Match / If-Modified-Since，命中时已设置 304
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return FileMetrics.OUTCOME_NOT_MODIFIED;
+        }
+
+        String contentType = resolveContentType(fileInfo);
+        String downloadName = StringUtils.hasText(fileInfo.getOriginalFilename())
+                ? fileInfo.getOriginalFilename() : fileName;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(downloadName, StandardCharsets.UTF_8).build().toString());
+
+        boolean writeBody = !"HEAD".equals(request.getMethod());
+
+        if (gzip && codec != null) {
+            // 磁盘上已经是 gzip，原样发送
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, codec.getContentEncoding());
+            response.setContentLengthLong(attributes.size());
+            transfer.setMode("stored_gzip");
+            if (writeBody && !trySendfile(request, filePath, 0, attributes.size(), transfer)) {
+                try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                    copyRange(channel, 0, attributes.size(), response.getOutputStream());
+                }
+            }
+            transfer.setBytes(writeBody ? attributes.size() : 0);
+            return FileMetrics.OUTCOME_SUCCESS;
+        }
+        if (gzip) {
+            transfer.setBytes(writeCompressed(fileName, filePath, lastModified, contentType, response, writeBody,
+                    transfer));
+            return FileMetrics.OUTCOME_SUCCESS;
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = requestedRanges(request, etag, lastModified, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return FileMetrics.OUTCOME_REJECTED;
+        }
+
+        if (codec != null) {
+            transfer.setMode("decode");
+            transfer.setBytes(writeDecoded(filePath, codec, ranges, length, contentType, response, writeBody));
+            return FileMetrics.OUTCOME_SUCCESS;
+        }
+
+        transfer.setMode("stream");
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            if (ranges.isEmpty()) {
+                response.setStatus(HttpStatus.OK.value());
+                response.setContentType(contentType);
+                response.setContentLengthLong(length);
+                if (writeBody && !trySendfile(request, filePath, 0, length, transfer)) {
+                    copyRange(channel, 0, length, response.getOutputStream());
+                }
+                transfer.setBytes(writeBody ? length : 0);
+            } else if (ranges.size() == 1) {
+                long start = ranges.get(0).getRangeStart(length);
+                long end = ranges.get(0).getRangeEnd(length);
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setContentType(contentType);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                response.setContentLengthLong(end - start + 1);
+                if (writeBody && !trySendfile(request, filePath, start, end - start + 1, transfer)) {
+                    copyRange(channel, start, end - start + 1, response.getOutputStream());
+                }
+                transfer.setBytes(writeBody ? end - start + 1 : 0);
+            } else {
+                transfer.setBytes(writeMultipartRanges(channel, ranges, length, contentType, response, writeBody));
+            }
+        }
+        return FileMetrics.OUTCOME_SUCCESS;
+    }
+
+    /**
+     * 发送 gzip 压缩后的完整内容：有缓存时发送缓存文件（已知长度），否则边读边压缩（分块传输）
+     *
+     * @return 写出的字节数
+     */
+    private long writeCompressed(String fileName, Path filePath, long lastModified, String contentType,
+                                 HttpServletResponse response, boolean writeBody, FileMetrics.Transfer transfer)
+            throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        FileChannel cached = writeBody ? compressionService.openCachedVariant(fileName, filePath, lastModified) : null;
+        if (cached == null) {
+            transfer.setMode("gzip");
+            return writeBody ? DownloadCompressionService.writeCompressed(filePath, response.getOutputStream()) : 0;
+        }
+        // 缓存文件在缓存锁内打开，之后即使被淘汰删除也能读完，因此不交给 sendfile（sendfile 在请求结束后才打开文件）
+        transfer.setMode("gzip_cached");
+        try (FileChannel channel = cached) {
+            long length = channel.size();
+            response.setContentLengthLong(length);
+            copyRange(channel, 0, length, response.getOutputStream());
+            return length;
+        }
+    }
+
+    /**
+     * 发送压缩存储文件的原始内容：边读边解压。单段 Range 通过跳过前面的内容实现，多段 Range 返回完整内容
+     */
+    private long writeDecoded(Path filePath, StorageCodec codec, List<HttpRange> ranges, long length,
+                              String contentType, HttpServletResponse response, boolean writeBody)
+            throws IOException {
+        long start = 0;
+        long count = length;
+        if (ranges.size() == 1) {
+            start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            count = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+        response.setContentType(contentType);
+        response.setContentLengthLong(count);
+        if (!writeBody) {
+            return 0;
+        }
+
+        try (InputStream input = codec.decode(Files.newInputStream(filePath))) {
+            input.skipNBytes(start);
+            ServletOutputStream output = response.getOutputStream();
+            byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(count, 1))];
+            long remaining = count;
+            while (remaining > 0) {
+                int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    throw new IOException("文件在下载过程中被截断");
+                }
+                output.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 解析 Range 头；If-Range 校验不通过或 Range 语法无效时忽略 Range 返回完整内容。
+     * 格式正确但无法满足的范围抛出 IllegalArgumentException
+     */
+    private List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified,
+                                            long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return List.of();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            ifRange = ifRange.trim();
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                // If-Range 要求强校验，弱 ETag 永不匹配
+                if (!ifRange.equals(etag)) {
+                    return List.of();
+                }
+            } else {
+                long ifRangeTime;
+                try {
+                    ifRangeTime = request.getDateHeader(HttpHeaders.IF_RANGE);
+                } catch (IllegalArgumentException e) {
+                    return List.of();
+                }
+                if (ifRangeTime == -1 || ifRangeTime / 1000 != lastModified / 1000) {
+                    return List.of();
+                }
+            }
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // 语法无效的 Range 按 RFC 9110 §14.2 忽略，返回完整内容
+            return List.of();
+        }
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length || end < start) {
+                throw new IllegalArgumentException("无法满足的范围: " + range);
+            }
+            total += end - start + 1;
+        }
+        // 重叠的多段范围总长超过文件本身时直接返回完整内容
+        return total > length ? List.of() : ranges;
+    }
+
+    /**
+     * 校验 If-Match / If-Unmodified-Since（If-Match 优先）
+     */
+    private boolean preconditionsMet(HttpServletRequest request, String etag, long lastModified) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null) {
+            for (String candidate : StringUtils.commaDelimitedListToStringArray(ifMatch)) {
+                candidate = candidate.trim();
+                if ("*".equals(candidate) || candidate.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifUnmodifiedSince;
+        try {
+            ifUnmodifiedSince = request.getDateHeader(HttpHeaders.IF_UNMODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        return ifUnmodifiedSince == -1 || lastModified / 1000 <= ifUnmodifiedSince / 1000;
+    }
+
+    private long writeMultipartRanges(FileChannel channel, List<HttpRange> ranges, long length, String contentType,
+                                      HttpServletResponse response, boolean writeBody) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        byte[][] partHeaders = new byte[ranges.size()][];
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long contentLength = closing.length;
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.get(i).getRangeStart(length);
+            long end = ranges.get(i).getRangeEnd(length);
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + (end - start + 1);
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (!writeBody) {
+            return 0;
+        }
+
+        ServletOutputStream output = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            long start = ranges.get(i).getRangeStart(length);
+            long end = ranges.get(i).getRangeEnd(length);
+            output.write(partHeaders[i]);
+            copyRange(channel, start, end - start + 1, output);
+        }
+        output.write(closing);
+        return contentLength;
+    }
+
+    /**
+     * 请求容器用 sendfile 发送文件的一段，成功时响应体由容器在请求结束后写出
+     */
+    private boolean trySendfile(HttpServletRequest request, Path filePath, long start, long count,
+                                FileMetrics.Transfer transfer) {
+        if (sendfileThreshold < 0 || count < sendfileThreshold
+                || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, filePath.toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START_ATTR, start);
+        request.setAttribute(SENDFILE_END_ATTR, start + count);
+        transfer.setMode("sendfile");
+        return true;
+    }
+
+    /**
+     * 按位置读取文件的一段写入输出流
+     */
+    private void copyRange(FileChannel channel, long position, long count, ServletOutputStream output)
+            throws IOException {
+        byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(count, 1))];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long remaining = count;
+        while (remaining > 0) {
+            byteBuffer.clear().limit((int) Math.min(buffer.length, remaining));
+            int read = channel.read(byteBuffer, position);
+            if (read == -1) {
+                throw new IOException("文件在下载过程中被截断");
+            }
+            output.write(buffer, 0, read);
+            position += read;
+            remaining -= read;
+        }
+    }
+
+    /**
+     * 使用上传时按内容识别并保存在索引中的类型，不再按请求查询 servlet 容器的 MIME 映射
+     */
+    private String resolveContentType(FileInfo fileInfo) {
+        String contentType = fileInfo.getFileType();
+        return contentType != null ? contentType : ContentTypeDetector.GENERIC_TYPE;
+    }
+}
@@ -0,0 +1,74 @@
+// src/main/java/com/djwsj/filemanager/service/FileListCursor.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.enums.FileSortField;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * 文件列表分页游标的编解码
+ * <p>
+ * 游标记录上一页最后一条记录的排序键和存储文件名，对客户端不透明（URL 安全的 Base64）。
+ * 按位置而不是偏移量续读，翻页期间有文件上传或删除也不会重复或遗漏。
+ */
+final class FileListCursor {
+
+    private static final byte VERSION = 1;
+
+    private FileListCursor() {
+    }
+
+    static String encode(FileSortField sort, boolean ascending, FileRecord last) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeByte(VERSION);
+            data.writeByte(sort.ordinal());
+            data.writeBoolean(ascending);
+            switch (sort) {
+                case UPLOAD_TIME -> data.writeLong(last.getUploadTime());
+                case SIZE -> data.writeLong(last.getSize());
+                case NAME -> data.writeUTF(last.getOriginalFilename());
+            }
+            data.writeUTF(last.getFilename());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("无法编码分页游标", e);
+        }
+    }
+
+    /**
+     * 解码游标，返回只包含排序键和文件名的定位记录；游标无效或与当前排序方式不一致时抛出 IllegalArgumentException
+     */
+    static FileRecord decode(String cursor, FileSortField sort, boolean ascending) {
+        long uploadTime = 0;
+        long size = 0;
+        String originalFilename = "";
+        String filename;
+        try {
+            DataInputStream data = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            boolean matches = data.readByte() == VERSION
+                    && data.readByte() == sort.ordinal()
+                    && data.readBoolean() == ascending;
+            if (!matches) {
+                throw new IllegalArgumentException("分页游标与当前排序方式不一致");
+            }
+            switch (sort) {
+                case UPLOAD_TIME -> uploadTime = data.readLong();
+                case SIZE -> size = data.readLong();
+                case NAME -> originalFilename = data.readUTF();
+            }
+            filename = data.readUTF();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return new FileRecord(filename, originalFilename, size, uploadTime, 0, null, null, null);
+    }
+}
@@ -0,0 +1,753 @@
+// src/main/java/com/djwsj/filemanager/service/FileMetadataIndex.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.FileSortField;
+import com.djwsj.filemanager.enums.StorageCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化的文件元数据索引（文件列表的唯一数据来源）
+ * <p>
+ * 索引保存在存储目录下的 .index/metadata.log 中，格式为只追加的二进制日志：
+ * 文件头（魔数 + 版本号）之后是若干条记录，每条记录为 [长度][CRC32][内容]，内容为 PUT 或 DELETE 操作。
+ * 启动时顺序回放日志重建内存索引，遇到不完整的尾部记录（进程崩溃时写了一半）会截断丢弃。
+ * 当日志中的记录数远多于存活的文件数时，定期将当前内容写成新的快照替换旧日志（压缩）。
+ * <p>
+ * 内存中为每个排序字段维护全局和按分类的有序索引，分页时直接从游标位置开始读取，不需要过滤或跳过前面的记录。
+ * 每个分类的文件数和总字节数随记录增删实时更新，统计接口不需要遍历记录或扫描目录。
+ * 去重存储的记录带有内容哈希，索引同时维护每个内容块的引用计数。
+ * 原始文件名和上传用户另有一份 trigram 倒排索引（{@link FileSearchIndex}），供搜索接口使用。
+ */
+@Component
+public class FileMetadataIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FileMetadataIndex.class);
+
+    private static final String INDEX_DIR = ".index";
+    private static final String LOG_FILE = "metadata.log";
+
+    private static final int MAGIC = 0x464D4958; // "FMIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private final Path logPath;
+
+    @Value("${file.index.sync-on-write:false}")
+    private boolean syncOnWrite;
+
+    @Value("${file.index.compact-min-records:10000}")
+    private long compactMinRecords;
+
+    // 内存中的记录和各项索引，读取不加锁；重建时在旁边建好新的一份后整体替换
+    private volatile State state = new State();
+
+    // 使用 ReentrantLock 而不是 synchronized：持锁期间有文件写入，虚拟线程在 synchronized 中阻塞会占住载体线程
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // 同一时间只写一份快照（先于 writeLock 获取）
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private FileChannel logChannel;
+    private long logRecordCount;
+    // 写快照期间追加的日志记录，快照写完后补写到新日志末尾（只在写锁内访问）
+    private List<byte[]> pendingSnapshot;
+    private volatile boolean loadedFromDisk;
+    // 重建期间（beginRebuild 到 completeRebuild）被修改过的文件名，不在重建时为 null（只在写锁内访问）
+    private Set<String> touchedDuringRebuild;
+
+    public FileMetadataIndex(@Value("${file.upload-dir:uploads}") String uploadDir) throws IOException {
+        Path indexLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(INDEX_DIR);
+        Files.createDirectories(indexLocation);
+        this.logPath = indexLocation.resolve(LOG_FILE);
+        load();
+    }
+
+    /**
+     * 索引是否从已有的日志中加载（否则需要扫描存储目录初始化）
+     */
+    public boolean isLoadedFromDisk() {
+        return loadedFromDisk;
+    }
+
+    public FileRecord get(String filename) {
+        return state.records.get(filename);
+    }
+
+    public boolean contains(String filename) {
+        return state.records.containsKey(filename);
+    }
+
+    public int size() {
+        return state.records.size();
+    }
+
+    /**
+     * 索引中所有存储文件名的只读视图
+     */
+    public Set<String> filenames() {
+        return Collections.unmodifiableSet(state.records.keySet());
+    }
+
+    /**
+     * 某个分类的文件数，category 为 null 时返回所有文件数
+     */
+    public long count(FileCategory category) {
+        State current = state;
+        return category != null ? current.categoryCounts.get(category).get() : current.records.size();
+    }
+
+    /**
+     * 某个分类的文件总字节数，category 为 null 时返回所有文件的总字节数
+     */
+    public long totalBytes(FileCategory category) {
+        State current = state;
+        if (category != null) {
+            return current.categoryBytes.get(category).get();
+        }
+        long total = 0;
+        for (AtomicLong bytes : current.categoryBytes.values()) {
+            total += bytes.get();
+        }
+        return total;
+    }
+
+    /**
+     * 引用某个内容块的记录数
+     */
+    public int blobReferences(String contentHash) {
+        return state.blobReferences.getOrDefault(contentHash, 0);
+    }
+
+    /**
+     * 按上传时间倒序遍历所有记录
+     */
+    public Collection<FileRecord> newestFirst() {
+        return Collections.unmodifiableCollection(state.sortedIndexes.get(FileSortField.UPLOAD_TIME).descendingSet());
+    }
+
+    /**
+     * 按排序字段分页获取记录
+     *
+     * @param category 为 null 时不过滤分类
+     * @param after    游标位置（上一页最后一条记录），为 null 时从头开始
+     * @param offset   从游标位置之后再跳过的记录数
+     */
+    public List<FileRecord> page(FileCategory category, FileSortField sort, boolean ascending, FileRecord after,
+                                 int offset, int limit) {
+        State current = state;
+        NavigableSet<FileRecord> index = category != null
+                ? current.categoryIndexes.get(category).get(sort)
+                : current.sortedIndexes.get(sort);
+        if (!ascending) {
+            index = index.descendingSet();
+        }
+        if (after != null) {
+            index = index.tailSet(after, false);
+        }
+
+        List<FileRecord> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        int skipped = 0;
+        for (FileRecord record : index) {
+            if (page.size() >= limit) {
+                break;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            page.add(record);
+        }
+        return page;
+    }
+
+    /**
+     * 按关键字（原始文件名、扩展名、上传用户）和过滤条件搜索，结果按相关度排序，只读取内存
+     */
+    FileSearchIndex.Hits search(FileSearchQuery query, int offset, int limit) {
+        return state.searchIndex.search(query, offset, limit);
+    }
+
+    /**
+     * 添加或更新一条记录
+     */
+    public void put(FileRecord record) {
+        writeLock.lock();
+        try {
+            state.put(record);
+            touch(record.getFilename());
+            append(encodePut(record));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 记录不存在时添加，已存在时不做任何操作（不覆盖应用自己登记的记录）
+     *
+     * @return 是否添加
+     */
+    public boolean putIfAbsent(FileRecord record) {
+        writeLock.lock();
+        try {
+            if (state.records.containsKey(record.getFilename())) {
+                return false;
+            }
+            state.put(record);
+            touch(record.getFilename());
+            append(encodePut(record));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 更新已有记录，记录不存在（例如已被并发删除）时不做任何操作，返回更新后的记录
+     */
+    public FileRecord update(String filename, UnaryOperator<FileRecord> updater) {
+        writeLock.lock();
+        try {
+            FileRecord previous = state.records.get(filename);
+            if (previous == null) {
+                return null;
+            }
+            FileRecord updated = updater.apply(previous);
+            if (updated == null || updated == previous) {
+                return previous;
+            }
+            state.put(updated);
+            touch(filename);
+            append(encodePut(updated));
+            return updated;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除一条记录，返回被删除的记录
+     */
+    public FileRecord remove(String filename) {
+        writeLock.lock();
+        try {
+            FileRecord previous = state.remove(filename);
+            // 重建期间删除尚未登记的文件（扫描可能已经读到）也要记录，否则完成重建时会被重新加入
+            touch(filename);
+            if (previous != null) {
+                append(encodeDelete(filename));
+            }
+            return previous;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 用一组记录整体替换索引内容：新的内存索引在锁外建好后一次替换，读取方不会看到空的或建了一半的索引
+     */
+    public void replaceAll(Collection<FileRecord> newRecords) {
+        State rebuilt = new State();
+        newRecords.forEach(rebuilt::put);
+        snapshotLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                state = rebuilt;
+                loadedFromDisk = true;
+            } finally {
+                writeLock.unlock();
+            }
+            writeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 开始重建索引：此后通过 put、remove 等方法修改的文件名都会被记录下来，
+     * {@link #completeRebuild(Collection)} 合并时这些文件以内存中的当前状态为准，
+     * 扫描期间的上传不会丢失，已删除的文件也不会因为扫描结果较旧而恢复
+     */
+    public void beginRebuild() {
+        writeLock.lock();
+        try {
+            if (touchedDuringRebuild != null) {
+                throw new IllegalStateException("元数据索引正在重建");
+            }
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 用扫描结果替换索引内容，重建期间被修改过的文件保留当前状态
+     * <p>
+     * 新的内存索引在锁外按扫描结果建好，写锁内只合并重建期间被修改过的文件并替换引用，
+     * 读取方始终看到完整的旧索引或新索引；快照在写锁外写入，不阻塞上传和删除
+     *
+     * @return 替换后的记录数
+     */
+    public int completeRebuild(Collection<FileRecord> scanned) {
+        State rebuilt = new State();
+        scanned.forEach(rebuilt::put);
+        int count;
+        snapshotLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                if (touchedDuringRebuild == null) {
+                    throw new IllegalStateException("没有进行中的索引重建");
+                }
+                for (String filename : touchedDuringRebuild) {
+                    FileRecord current = state.records.get(filename);
+                    if (current != null) {
+                        rebuilt.put(current);
+                    } else {
+                        rebuilt.remove(filename);
+                    }
+                }
+                touchedDuringRebuild = null;
+                count = rebuilt.records.size();
+                state = rebuilt;
+                loadedFromDisk = true;
+            } finally {
+                writeLock.unlock();
+            }
+            writeSnapshot();
+            return count;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 放弃进行中的重建（扫描失败时调用），索引内容保持不变
+     */
+    public void abortRebuild() {
+        writeLock.lock();
+        try {
+            touchedDuringRebuild = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void touch(String filename) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.add(filename);
+        }
+    }
+
+    /**
+     * 日志中的无效记录（被覆盖或删除）过多时重写为快照
+     */
+    @Scheduled(fixedDelayString = "${file.index.compact-interval-ms:60000}")
+    public void compactIfNeeded() {
+        snapshotLock.lock();
+        try {
+            boolean compact;
+            writeLock.lock();
+            try {
+                compact = logRecordCount > compactMinRecords && logRecordCount > 2L * state.records.size();
+            } finally {
+                writeLock.unlock();
+            }
+            if (compact) {
+                writeSnapshot();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        writeLock.lock();
+        try {
+            closeLog();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ==================== 日志读写 ====================
+
+    private void load() throws IOException {
+        if (!Files.exists(logPath)) {
+            openLog();
+            writeHeader();
+            return;
+        }
+
+        long validLength = HEADER_SIZE;
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(logPath), 256 * 1024)) {
+            DataInputStream data = new DataInputStream(input);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                log.warn("元数据索引格式不兼容，将重新扫描存储目录: {}", logPath);
+                Files.delete(logPath);
+                openLog();
+                writeHeader();
+                return;
+            }
+
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_SIZE) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                int checksum;
+                try {
+                    checksum = data.readInt();
+                    data.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload);
+                validLength += 8 + length;
+                logRecordCount++;
+            }
+        } catch (EOFException e) {
+            // 文件头不完整
+            log.warn("元数据索引文件头不完整，将重新扫描存储目录: {}", logPath);
+            Files.delete(logPath);
+            openLog();
+            writeHeader();
+            return;
+        }
+
+        openLog();
+        if (logChannel.size() > validLength) {
+            log.warn("元数据索引尾部记录不完整，已截断: {} 字节", logChannel.size() - validLength);
+            logChannel.truncate(validLength);
+        }
+        state.indexAll();
+        loadedFromDisk = true;
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = data.readByte();
+        String filename = data.readUTF();
+        if (op == OP_DELETE) {
+            state.records.remove(filename);
+            return;
+        }
+        String originalFilename = data.readUTF();
+        long size = data.readLong();
+        long uploadTime = data.readLong();
+        long lastModified = data.readLong();
+        String fileType = emptyToNull(data.readUTF());
+        String category = data.readUTF();
+        String uploadUser = emptyToNull(data.readUTF());
+        // 内容哈希、压缩编码、校验和是后加的字段，旧记录中没有
+        String contentHash = data.available() > 0 ? emptyToNull(data.readUTF()) : null;
+        StorageCodec storageCodec = data.available() > 0 ? StorageCodec.fromName(data.readUTF()) : null;
+        String checksum = data.available() > 0 ? emptyToNull(data.readUTF()) : null;
+
+        FileCategory fileCategory;
+        try {
+            fileCategory = FileCategory.valueOf(category);
+        } catch (IllegalArgumentException e) {
+            fileCategory = FileCategory.OTHER;
+        }
+        state.records.put(filename, new FileRecord(filename, originalFilename, size, uploadTime, lastModified,
+                fileType, fileCategory, uploadUser, contentHash, storageCodec, checksum));
+    }
+
+    private byte[] encodePut(FileRecord record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeByte(OP_PUT);
+            data.writeUTF(record.getFilename());
+            data.writeUTF(nullToEmpty(record.getOriginalFilename()));
+            data.writeLong(record.getSize());
+            data.writeLong(record.getUploadTime());
+            data.writeLong(record.getLastModified());
+            data.writeUTF(nullToEmpty(record.getFileType()));
+            data.writeUTF(record.getCategory().name());
+            data.writeUTF(nullToEmpty(record.getUploadUser()));
+            data.writeUTF(nullToEmpty(record.getContentHash()));
+            data.writeUTF(record.getStorageCodec() != null ? record.getStorageCodec().name() : "");
+            data.writeUTF(nullToEmpty(record.getChecksum()));
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("无法编码索引记录: " + record.getFilename(), e);
+        }
+    }
+
+    private byte[] encodeDelete(String filename) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeByte(OP_DELETE);
+            data.writeUTF(filename);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("无法编码索引记录: " + filename, e);
+        }
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return buffer;
+    }
+
+    private void append(byte[] payload) {
+        if (pendingSnapshot != null) {
+            pendingSnapshot.add(payload);
+        }
+        try {
+            ByteBuffer buffer = frame(payload);
+            while (buffer.hasRemaining()) {
+                logChannel.write(buffer);
+            }
+            if (syncOnWrite) {
+                logChannel.force(false);
+            }
+            logRecordCount++;
+        } catch (IOException e) {
+            // 内存索引已更新，日志写入失败时下次启动会通过扫描目录补齐
+            log.error("写入元数据索引失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 把当前内存内容写成新的日志文件并原子替换旧日志（调用方持有 snapshotLock，不持有 writeLock）
+     * <p>
+     * 先在写锁内开始记录之后追加的日志，再在锁外遍历记录写入临时文件；遍历期间被修改的记录都在之后追加的日志中，
+     * 补写到临时文件末尾后，回放结果与内存一致。写锁内只补写这部分记录并替换文件
+     */
+    private void writeSnapshot() {
+        Path tempPath = logPath.resolveSibling(LOG_FILE + ".tmp");
+        State snapshot;
+        writeLock.lock();
+        try {
+            snapshot = state;
+            pendingSnapshot = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        long written = 0;
+        try {
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(tempPath), 256 * 1024)) {
+                DataOutputStream data = new DataOutputStream(output);
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                for (FileRecord record : snapshot.records.values()) {
+                    ByteBuffer frame = frame(encodePut(record));
+                    output.write(frame.array(), 0, frame.limit());
+                    written++;
+                }
+            }
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            log.error("写入元数据索引快照失败: {}", e.getMessage());
+            writeLock.lock();
+            try {
+                pendingSnapshot = null;
+            } finally {
+                writeLock.unlock();
+            }
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                for (byte[] payload : pendingSnapshot) {
+                    ByteBuffer frame = frame(payload);
+                    while (frame.hasRemaining()) {
+                        channel.write(frame);
+                    }
+                }
+                channel.force(true);
+            }
+            closeLog();
+            Files.move(tempPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            openLog();
+            logRecordCount = written + pendingSnapshot.size();
+        } catch (IOException e) {
+            log.error("写入元数据索引快照失败: {}", e.getMessage());
+            try {
+                if (logChannel == null || !logChannel.isOpen()) {
+                    openLog();
+                }
+            } catch (IOException ex) {
+                log.warn("无法重新打开元数据索引: {}", ex.getMessage());
+            }
+        } finally {
+            pendingSnapshot = null;
+            writeLock.unlock();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            logChannel.write(header);
+        }
+    }
+
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void closeLog() {
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                log.warn("关闭元数据索引失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 内存中的记录和各项索引（整体替换时一起替换）
+     */
+    private static final class State {
+        private final Map<String, FileRecord> records = new ConcurrentHashMap<>();
+        // 有序索引：排序字段 -> 记录，以及分类 -> 排序字段 -> 记录
+        private final Map<FileSortField, NavigableSet<FileRecord>> sortedIndexes = new EnumMap<>(FileSortField.class);
+        private final Map<FileCategory, Map<FileSortField, NavigableSet<FileRecord>>> categoryIndexes =
+                new EnumMap<>(FileCategory.class);
+        // 分类统计：文件数和总字节数（只在写锁内或替换前修改，读取不加锁）
+        private final Map<FileCategory, AtomicLong> categoryCounts = new EnumMap<>(FileCategory.class);
+        private final Map<FileCategory, AtomicLong> categoryBytes = new EnumMap<>(FileCategory.class);
+        // 去重存储：内容哈希 -> 引用该内容块的记录数
+        private final Map<String, Integer> blobReferences = new ConcurrentHashMap<>();
+        // 原始文件名、上传用户的搜索索引
+        private final FileSearchIndex searchIndex = new FileSearchIndex();
+
+        State() {
+            for (FileSortField sort : FileSortField.values()) {
+                sortedIndexes.put(sort, new ConcurrentSkipListSet<>(sort.getComparator()));
+            }
+            for (FileCategory category : FileCategory.values()) {
+                Map<FileSortField, NavigableSet<FileRecord>> indexes = new EnumMap<>(FileSortField.class);
+                for (FileSortField sort : FileSortField.values()) {
+                    indexes.put(sort, new ConcurrentSkipListSet<>(sort.getComparator()));
+                }
+                categoryIndexes.put(category, indexes);
+                categoryCounts.put(category, new AtomicLong());
+                categoryBytes.put(category, new AtomicLong());
+            }
+        }
+
+        void put(FileRecord record) {
+            FileRecord previous = records.put(record.getFilename(), record);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(record);
+        }
+
+        FileRecord remove(String filename) {
+            FileRecord previous = records.remove(filename);
+            if (previous != null) {
+                unindex(previous);
+            }
+            return previous;
+        }
+
+        /**
+         * 回放日志后为全部记录建立索引
+         */
+        void indexAll() {
+            records.values().forEach(this::index);
+        }
+
+        private void index(FileRecord record) {
+            Map<FileSortField, NavigableSet<FileRecord>> indexes = categoryIndexes.get(record.getCategory());
+            for (FileSortField sort : FileSortField.values()) {
+                sortedIndexes.get(sort).add(record);
+                indexes.get(sort).add(record);
+            }
+            categoryCounts.get(record.getCategory()).incrementAndGet();
+            categoryBytes.get(record.getCategory()).addAndGet(record.getSize());
+            if (record.getContentHash() != null) {
+                blobReferences.merge(record.getContentHash(), 1, Integer::sum);
+            }
+            searchIndex.add(record);
+        }
+
+        private void unindex(FileRecord record) {
+            Map<FileSortField, NavigableSet<FileRecord>> indexes = categoryIndexes.get(record.getCategory());
+            for (FileSortField sort : FileSortField.values()) {
+                sortedIndexes.get(sort).remove(record);
+                indexes.get(sort).remove(record);
+            }
+            categoryCounts.get(record.getCategory()).decrementAndGet();
+            categoryBytes.get(record.getCategory()).addAndGet(-record.getSize());
+            if (record.getContentHash() != null) {
+                blobReferences.computeIfPresent(record.getContentHash(), (hash, count) -> count > 1 ? count - 1 : null);
+            }
+            searchIndex.remove(record);
+        }
+    }
+}
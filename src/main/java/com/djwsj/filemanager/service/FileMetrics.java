@@ -0,0 +1,201 @@
+// src/main/java/com/djwsj/filemanager/service/FileMetrics.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.enums.FileCategory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 文件操作的监控指标（/actuator/metrics、/actuator/prometheus）
+ * <p>
+ * 上传、下载：file.upload / file.download（耗时，按分类、结果，下载另按发送方式），
+ * *.bytes（字节数）、*.throughput（每个文件的传输速率，字节/秒）、*.active（进行中的传输数）。
+ * 列表与查询：file.list（按操作）、file.info.lookup（按数据来源：缓存、索引、文件系统）、file.delete。
+ * 目录扫描与类型探测：file.index.rebuild、file.content-type.probe。
+ * <p>
+ * 使用 sendfile 发送的下载由容器在请求结束后写出，耗时只包含准备阶段，不记录传输速率（mode=sendfile）。
+ */
+@Component
+public class FileMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_NOT_MODIFIED = "not_modified";
+    // 条件请求不满足（412）或范围无法满足（416）
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final AtomicInteger activeDownloads = new AtomicInteger();
+
+    public FileMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registry.gauge("file.upload.active", activeUploads);
+        registry.gauge("file.download.active", activeDownloads);
+    }
+
+    public Transfer startUpload() {
+        return new Transfer("file.upload", activeUploads, null);
+    }
+
+    /**
+     * 开始下载，发送前由调用方设置实际的发送方式（同一指标的标签集合必须一致，因此下载始终带 mode 标签）
+     */
+    public Transfer startDownload() {
+        return new Transfer("file.download", activeDownloads, "none");
+    }
+
+    /**
+     * 记录文件列表操作的耗时
+     */
+    public <T> T timeListing(String operation, Supplier<T> listing) {
+        return Timer.builder("file.list")
+                .description("文件列表查询耗时")
+                .tag("operation", operation)
+                .register(registry)
+                .record(listing);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * 记录目录扫描、类型探测等可能较慢的文件系统操作的耗时
+     */
+    public void recordFilesystem(Timer.Sample sample, String name) {
+        sample.stop(Timer.builder(name).register(registry));
+    }
+
+    /**
+     * 文件信息查询
+     *
+     * @param source 数据来源：cache、index、filesystem，未找到为 missing
+     */
+    public void recordLookup(Timer.Sample sample, String source) {
+        sample.stop(Timer.builder("file.info.lookup")
+                .description("文件信息查询耗时")
+                .tag("source", source)
+                .register(registry));
+    }
+
+    public void recordDelete(Timer.Sample sample, FileCategory category, String outcome) {
+        sample.stop(Timer.builder("file.delete")
+                .description("文件删除耗时")
+                .tag("category", categoryTag(category))
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    /**
+     * 文件监视同步的外部修改
+     *
+     * @param action created、modified、deleted，事件队列溢出为 overflow
+     */
+    public void recordWatchEvent(String action) {
+        Counter.builder("file.watch.events")
+                .description("文件监视同步的外部修改")
+                .tag("action", action)
+                .register(registry)
+                .increment();
+    }
+
+    private static String categoryTag(FileCategory category) {
+        return (category != null ? category : FileCategory.OTHER).name();
+    }
+
+    /**
+     * 一次上传或下载：创建时计入进行中的传输，{@link #finish(String)} 时记录耗时、字节数和传输速率
+     */
+    public final class Transfer {
+
+        private final String name;
+        private final AtomicInteger active;
+        private final Timer.Sample sample;
+        private FileCategory category;
+        private String mode;
+        private long bytes;
+        private long durationNanos;
+        private boolean finished;
+
+        private Transfer(String name, AtomicInteger active, String mode) {
+            this.name = name;
+            this.active = active;
+            this.mode = mode;
+            this.sample = Timer.start(registry);
+            active.incrementAndGet();
+        }
+
+        public void setCategory(FileCategory category) {
+            this.category = category;
+        }
+
+        /**
+         * 下载的发送方式（stream、sendfile、gzip 等），上传没有该标签
+         */
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public void setBytes(long bytes) {
+            this.bytes = bytes;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 结束后的耗时（毫秒），未结束时为 0
+         */
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        public void finish(String outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            active.decrementAndGet();
+
+            String categoryTag = categoryTag(category);
+            Timer.Builder timer = Timer.builder(name)
+                    .tag("category", categoryTag)
+                    .tag("outcome", outcome);
+            if (mode != null) {
+                timer.tag("mode", mode);
+            }
+            long nanos = sample.stop(timer.register(registry));
+            durationNanos = nanos;
+
+            if (!OUTCOME_SUCCESS.equals(outcome) || bytes <= 0) {
+                return;
+            }
+            Counter.builder(name + ".bytes")
+                    .baseUnit("bytes")
+                    .tag("category", categoryTag)
+                    .register(registry)
+                    .increment(bytes);
+            if (!"sendfile".equals(mode) && nanos > 0) {
+                DistributionSummary.builder(name + ".throughput")
+                        .baseUnit("bytes/s")
+                        .tag("category", categoryTag)
+                        .register(registry)
+                        .record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+// src/main/java/com/djwsj/filemanager/service/FilePostProcessor.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 上传后处理步骤，注册为 Spring Bean 后由 {@link PostProcessingService} 按 @Order 顺序依次执行。
+ * 任务失败后会整体重试，因此每个步骤都必须可以重复执行
+ */
+public interface FilePostProcessor {
+
+    /**
+     * 处理一个文件
+     *
+     * @param record  文件的索引记录（处理开始时的快照）
+     * @param file    文件的实际存储路径（压缩存储的文件需要用 FileStorageService#openContent 读取原始内容）
+     * @param results 写入本步骤的结果，后面的步骤可以读取前面步骤的结果
+     */
+    void process(FileRecord record, Path file, Map<String, String> results) throws IOException;
+}
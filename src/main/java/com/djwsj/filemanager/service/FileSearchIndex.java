@@ -0,0 +1,435 @@
+// src/main/java/com/djwsj/filemanager/service/FileSearchIndex.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 文件搜索的内存倒排索引，由 {@link FileMetadataIndex} 随记录增删同步维护
+ * <p>
+ * 每条记录分配一个递增的整数编号，原始文件名和上传用户转为小写后按连续三个字符（trigram）和两个字符（bigram）切分，
+ * 每个片段对应一个升序的编号数组。搜索时取关键字所有片段编号数组的交集作为候选（从最短的数组开始；
+ * 三个字符以上的关键字只用 trigram），再逐条核对关键字和过滤条件并计算相关度，只保留当前页需要的前若干条。
+ * 只有单个字符的关键字、或者只有过滤条件时遍历全部记录（仍只比较内存中的数据）。
+ * 删除的记录留下空编号，编号空间用完且空编号超过一半时重新编号压缩。
+ */
+final class FileSearchIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // bigram 与 trigram 放在同一个表中，用最高的字符位区分
+    private static final long BIGRAM = 1L << 48;
+
+    // 相关度
+    private static final int SCORE_EXACT = 100;
+    private static final int SCORE_PREFIX = 60;
+    private static final int SCORE_EXTENSION = 50;
+    private static final int SCORE_WORD_START = 40;
+    private static final int SCORE_USER_EXACT = 30;
+    private static final int SCORE_CONTAINS = 20;
+    private static final int SCORE_USER_CONTAINS = 10;
+
+    private final Comparator<Hit> hitOrder = (a, b) -> compare(a.score, a.id, b.score, b.id);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private FileRecord[] records = new FileRecord[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] users = new String[INITIAL_CAPACITY];
+    // 过滤和排序用到的字段另存为基本类型数组，遍历大量候选时不需要逐个读取记录对象
+    private long[] uploadTimes = new long[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private byte[] categories = new byte[INITIAL_CAPACITY];
+    private int nextId;
+    private int live;
+
+    void add(FileRecord record) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = ids.get(record.getFilename());
+            if (existing != null) {
+                removeId(existing);
+            }
+            if (nextId == records.length) {
+                ensureCapacity();
+            }
+            int id = nextId++;
+            records[id] = record;
+            names[id] = lower(record.getOriginalFilename());
+            users[id] = lower(record.getUploadUser());
+            uploadTimes[id] = record.getUploadTime();
+            sizes[id] = record.getSize();
+            categories[id] = (byte) record.getCategory().ordinal();
+            ids.put(record.getFilename(), id);
+            live++;
+            // 编号递增，追加到末尾即保持升序
+            for (long gram : grams(names[id], users[id], true)) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(FileRecord record) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(record.getFilename());
+            if (id != null) {
+                removeId(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            postings.clear();
+            records = new FileRecord[INITIAL_CAPACITY];
+            names = new String[INITIAL_CAPACITY];
+            users = new String[INITIAL_CAPACITY];
+            uploadTimes = new long[INITIAL_CAPACITY];
+            sizes = new long[INITIAL_CAPACITY];
+            categories = new byte[INITIAL_CAPACITY];
+            nextId = 0;
+            live = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按关键字和过滤条件搜索，返回命中总数和 [offset, offset + limit) 范围内的记录
+     */
+    Hits search(FileSearchQuery query, int offset, int limit) {
+        List<String> terms = terms(query.getKeywords());
+        String extension = query.getExtension() != null ? lower(query.getExtension().trim()) : null;
+        String user = query.getUploadUser() != null ? lower(query.getUploadUser().trim()) : null;
+        int keep = offset + limit;
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(terms);
+            int count = candidates != null ? candidates.length : nextId;
+            // 堆顶是当前保留结果中排名最后的一条
+            PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, Math.min(keep, 1024)), hitOrder.reversed());
+            long total = 0;
+            // 编号大致按上传先后分配，从大到小遍历时堆很快被较新的记录填满，之后多数候选不需要入堆
+            for (int i = count - 1; i >= 0; i--) {
+                int id = candidates != null ? candidates[i] : i;
+                // 先比较关键字（只读文件名字符串），命中后才读取记录检查过滤条件
+                if (names[id] == null) {
+                    continue;
+                }
+                int score = score(id, terms);
+                if (score < 0) {
+                    continue;
+                }
+                if (!matchesFilters(id, query, extension, user)) {
+                    continue;
+                }
+                total++;
+                if (top.size() < keep) {
+                    top.add(new Hit(id, records[id], score));
+                } else if (keep > 0 && compare(score, id, top.peek().score, top.peek().id) < 0) {
+                    top.poll();
+                    top.add(new Hit(id, records[id], score));
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(hitOrder);
+            List<FileRecord> page = new ArrayList<>(Math.max(0, ranked.size() - offset));
+            for (int i = offset; i < ranked.size(); i++) {
+                page.add(ranked.get(i).record);
+            }
+            return new Hits(total, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 排序：相关度从高到低，相同时新上传的在前，再按存储文件名
+     */
+    private int compare(int scoreA, int idA, int scoreB, int idB) {
+        if (scoreA != scoreB) {
+            return scoreA > scoreB ? -1 : 1;
+        }
+        if (uploadTimes[idA] != uploadTimes[idB]) {
+            return uploadTimes[idA] > uploadTimes[idB] ? -1 : 1;
+        }
+        return records[idA].getFilename().compareTo(records[idB].getFilename());
+    }
+
+    /**
+     * 候选编号：所有关键字的所有 trigram 编号数组的交集；没有可用的 trigram 时返回 null（遍历全部记录）
+     */
+    private int[] candidates(List<String> terms) {
+        List<IntList> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (long gram : grams(term, null, false)) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            IntList list = lists.get(i);
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < size; j++) {
+                int position = Arrays.binarySearch(list.values, from, list.size, result[j]);
+                if (position >= 0) {
+                    result[kept++] = result[j];
+                    from = position + 1;
+                } else {
+                    from = -position - 1;
+                }
+            }
+            size = kept;
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private boolean matchesFilters(int id, FileSearchQuery query, String extension, String user) {
+        if (query.getCategory() != null && categories[id] != query.getCategory().ordinal()) {
+            return false;
+        }
+        if (query.getMinSize() != null && sizes[id] < query.getMinSize()) {
+            return false;
+        }
+        if (query.getMaxSize() != null && sizes[id] > query.getMaxSize()) {
+            return false;
+        }
+        if (query.getUploadedFrom() != null && uploadTimes[id] < query.getUploadedFrom()) {
+            return false;
+        }
+        if (query.getUploadedTo() != null && uploadTimes[id] > query.getUploadedTo()) {
+            return false;
+        }
+        if (user != null && !user.equals(users[id])) {
+            return false;
+        }
+        return extension == null || isExtension(names[id], extension);
+    }
+
+    /**
+     * 所有关键字都匹配时返回相关度之和（没有关键字时为 0），否则返回 -1
+     */
+    private int score(int id, List<String> terms) {
+        String name = names[id];
+        String user = users[id];
+        int total = 0;
+        for (String term : terms) {
+            int best = nameScore(name, term);
+            if (user != null && best < SCORE_USER_EXACT) {
+                if (user.equals(term)) {
+                    best = SCORE_USER_EXACT;
+                } else if (best < SCORE_USER_CONTAINS && user.contains(term)) {
+                    best = SCORE_USER_CONTAINS;
+                }
+            }
+            if (best == 0) {
+                return -1;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static int nameScore(String name, String term) {
+        int index = name.indexOf(term);
+        if (index < 0) {
+            return 0;
+        }
+        int dot = name.lastIndexOf('.');
+        int baseLength = dot > 0 ? dot : name.length();
+        if (index == 0) {
+            return term.length() == name.length() || term.length() == baseLength ? SCORE_EXACT : SCORE_PREFIX;
+        }
+        if (isExtension(name, term)) {
+            return SCORE_EXTENSION;
+        }
+        for (; index > 0; index = name.indexOf(term, index + 1)) {
+            if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                return SCORE_WORD_START;
+            }
+        }
+        return SCORE_CONTAINS;
+    }
+
+    private static boolean isExtension(String name, String extension) {
+        int start = name.length() - extension.length();
+        return start > 1 && name.charAt(start - 1) == '.' && name.startsWith(extension, start);
+    }
+
+    private static List<String> terms(String keywords) {
+        if (keywords == null || keywords.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : keywords.trim().split("\\s+")) {
+            terms.add(lower(term));
+        }
+        return terms;
+    }
+
+    /**
+     * 文本的片段：建立索引时取全部 trigram 和 bigram；查询时三个字符以上只取 trigram，两个字符取 bigram
+     */
+    private static Set<Long> grams(String text, String other, boolean indexing) {
+        Set<Long> grams = new HashSet<>();
+        addGrams(text, grams, indexing);
+        addGrams(other, grams, indexing);
+        return grams;
+    }
+
+    private static void addGrams(String text, Set<Long> grams, boolean indexing) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        if (indexing || text.length() == 2) {
+            for (int i = 0; i + 2 <= text.length(); i++) {
+                grams.add(BIGRAM | ((long) text.charAt(i) << 16) | text.charAt(i + 1));
+            }
+        }
+    }
+
+    private static String lower(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private void removeId(int id) {
+        for (long gram : grams(names[id], users[id], true)) {
+            IntList list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        ids.remove(records[id].getFilename());
+        records[id] = null;
+        names[id] = null;
+        users[id] = null;
+        live--;
+    }
+
+    /**
+     * 编号空间已满：空编号超过一半时按原顺序重新编号（编号数组仍保持升序），否则扩容
+     */
+    private void ensureCapacity() {
+        if (live > records.length / 2) {
+            int capacity = records.length * 2;
+            records = Arrays.copyOf(records, capacity);
+            names = Arrays.copyOf(names, capacity);
+            users = Arrays.copyOf(users, capacity);
+            uploadTimes = Arrays.copyOf(uploadTimes, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            return;
+        }
+
+        int[] remap = new int[nextId];
+        int compacted = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (records[id] == null) {
+                remap[id] = -1;
+                continue;
+            }
+            remap[id] = compacted;
+            records[compacted] = records[id];
+            names[compacted] = names[id];
+            users[compacted] = users[id];
+            uploadTimes[compacted] = uploadTimes[id];
+            sizes[compacted] = sizes[id];
+            categories[compacted] = categories[id];
+            ids.put(records[compacted].getFilename(), compacted);
+            compacted++;
+        }
+        Arrays.fill(records, compacted, nextId, null);
+        Arrays.fill(names, compacted, nextId, null);
+        Arrays.fill(users, compacted, nextId, null);
+        for (IntList list : postings.values()) {
+            for (int i = 0; i < list.size; i++) {
+                list.values[i] = remap[list.values[i]];
+            }
+        }
+        nextId = compacted;
+    }
+
+    /**
+     * 升序的编号数组
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean remove(int value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    private static final class Hit {
+        private final int id;
+        private final FileRecord record;
+        private final int score;
+
+        Hit(int id, FileRecord record, int score) {
+            this.id = id;
+            this.record = record;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 搜索结果：命中总数和当前页的记录
+     */
+    static final class Hits {
+        private final long total;
+        private final List<FileRecord> records;
+
+        Hits(long total, List<FileRecord> records) {
+            this.total = total;
+            this.records = records;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        List<FileRecord> getRecords() {
+            return records;
+        }
+    }
+}
@@ -1,43 +1,272 @@
 package com.djwsj.filemanager.service;
 
 import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.entity.FilePage;
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.entity.FileSearchResult;
 import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.FileSortField;
+import com.djwsj.filemanager.enums.StorageCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.UrlResource;
 import org.springframework.core.io.Resource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
 
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
     private final Path fileStorageLocation;
 
+    // 流式上传的暂存目录（与存储目录位于同一文件系统，完成后只需重命名）
+    private final Path incomingLocation;
+
     // 设置为最大限制 2GB
     @Value("${file.max-size:2147483647}") // 2GB
     private long maxFileSize;
 
-    @Value("${file.allowed-extensions:jpg,jpeg,png,gif,pdf,doc,docx,xls,xlsx,txt,zip,rar,mp4,avi,mp3,wav}")
-    private String allowedExtensions;
+    // 压缩存储：这些扩展名的文件在接收时 gzip 压缩后写入磁盘（去重存储模式下不压缩）
+    @Value("${file.storage.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${file.storage.compression.extensions:txt,log,csv,md,json,xml,html,css,js,java,py,c,cpp,h,doc,xls,ppt}")
+    private Set<String> compressedExtensions;
+
+    // 搜索最多能翻到的结果数（offset + limit），避免深分页在堆中保留全部命中记录
+    @Value("${file.search.max-result-window:10000}")
+    private int maxSearchResultWindow;
+
+    // 持久化的元数据索引（文件列表的数据来源）
+    private final FileMetadataIndex metadataIndex;
+
+    // 按内容去重的存储（file.storage.dedup.enabled 开启时新上传的文件存入其中）
+    private final BlobStore blobStore;
+
+    // 存储目录布局（平铺或按前缀分目录），普通文件的路径都由它解析
+    private final StoragePathStrategy storagePaths;
+
+    // 文件登记完成后发布 FileStoredEvent，触发异步后处理
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 上传、查询、删除等操作的监控指标
+    private final FileMetrics fileMetrics;
+
+    // 扩展名校验与分类（file.allowed-extensions 与 FileCategory）
+    private final ExtensionRegistry extensionRegistry;
+
+    // 按文件头特征字节识别 MIME 类型，结果保存在索引记录中
+    private final ContentTypeDetector contentTypeDetector;
 
-    // 内存中存储文件信息（实际项目中建议使用数据库）
-    private final Map<String, FileInfo> fileInfoCache = new ConcurrentHashMap<>();
+    // FileInfo 对象缓存：按条目数量限制大小（W-TinyLFU 淘汰），可选按时间与文件修改时间重新校验
+    private final LoadingCache<String, FileInfo> fileInfoCache;
+    private final long cacheMaxSize;
 
-    public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir) throws IOException {
+    public FileStorageService(@Value("${file.upload-dir:uploads}") String uploadDir,
+                              @Value("${file.cache.max-size:10000}") long cacheMaxSize,
+                              @Value("${file.cache.revalidate-after:0s}") Duration cacheRevalidateAfter,
+                              FileMetadataIndex metadataIndex,
+                              BlobStore blobStore,
+                              StoragePathStrategy storagePaths,
+                              ApplicationEventPublisher eventPublisher,
+                              FileMetrics fileMetrics,
+                              ExtensionRegistry extensionRegistry,
+                              ContentTypeDetector contentTypeDetector) throws IOException {
         this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
         Files.createDirectories(this.fileStorageLocation);
+        this.incomingLocation = this.fileStorageLocation.resolve(".incoming");
+        Files.createDirectories(this.incomingLocation);
+        this.metadataIndex = metadataIndex;
+        this.blobStore = blobStore;
+        this.storagePaths = storagePaths;
+        this.eventPublisher = eventPublisher;
+        this.fileMetrics = fileMetrics;
+        this.extensionRegistry = extensionRegistry;
+        this.contentTypeDetector = contentTypeDetector;
+
+        this.cacheMaxSize = cacheMaxSize;
+        Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .recordStats();
+        if (!cacheRevalidateAfter.isZero() && !cacheRevalidateAfter.isNegative()) {
+            // 条目写入超过该时间后，下次访问时在后台按文件修改时间重新校验
+            cacheBuilder.refreshAfterWrite(cacheRevalidateAfter);
+        }
+        this.fileInfoCache = cacheBuilder.build(new CacheLoader<>() {
+            @Override
+            public FileInfo load(String fileName) {
+                FileRecord record = metadataIndex.get(fileName);
+                return record != null ? createFileInfo(record) : null;
+            }
+
+            @Override
+            public FileInfo reload(String fileName, FileInfo oldValue) {
+                return revalidate(fileName, oldValue);
+            }
+        });
+    }
+
+    /**
+     * 启动预热时核对元数据索引（由 {@link IndexWarmupService} 在后台调用）：
+     * 首次启动（或索引文件丢失）时并行扫描存储目录建立索引；已有索引时只核对文件名，
+     * 停机期间目录被外部修改才重建，使索引和分类统计与目录一致
+     *
+     * @param files     存储目录中的全部文件（{@link #listStoredFiles()} 的结果）
+     * @param pool      读取文件信息使用的 fork/join 线程池
+     * @param processed 已读取的文件数（预热进度）
+     */
+    void reconcileIndex(List<Path> files, ForkJoinPool pool, AtomicLong processed) {
+        if (!metadataIndex.isLoadedFromDisk()) {
+            int count = rebuildIndex(files, pool, processed);
+            log.info("已扫描存储目录建立元数据索引: {} 个文件", count);
+            return;
+        }
+
+        resyncIndex(files, pool, processed);
+
+        // 清理写入后未来得及登记到索引的内容块（索引从日志加载时引用计数才完整）
+        int swept = blobStore.sweep(contentHash -> metadataIndex.blobReferences(contentHash) > 0);
+        if (swept > 0) {
+            log.info("已清理未引用的内容块: {} 个", swept);
+        }
+    }
+
+    /**
+     * 按存储目录核对索引中的文件名，不一致时重建索引（启动预热时调用）
+     *
+     * @return 是否重建了索引
+     */
+    boolean resyncIndex(List<Path> files, ForkJoinPool pool, AtomicLong processed) {
+        Set<String> fileNames = files.stream()
+                .map(path -> path.getFileName().toString())
+                .collect(Collectors.toSet());
+        if (fileNames.equals(indexedStoredFileNames())) {
+            processed.set(files.size());
+            return false;
+        }
+        int count = rebuildIndex(files, pool, processed);
+        log.info("存储目录与元数据索引不一致，已重新同步: {} 个文件", count);
+        return true;
+    }
+
+    /**
+     * 索引中保存在存储目录里的文件名（去重存储的文件在内容块目录中，不包括在内）
+     */
+    Set<String> indexedStoredFileNames() {
+        return metadataIndex.newestFirst().stream()
+                .filter(record -> record.getContentHash() == null)
+                .map(FileRecord::getFilename)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 按存储目录中单个文件的当前状态更新索引和缓存（{@link StorageWatcher} 检测到外部修改时调用）
+     *
+     * @return 执行的操作：created、modified、deleted，没有变化时返回 null
+     */
+    String syncStoredFile(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        if (!storagePaths.isValidName(fileName)) {
+            return null;
+        }
+        FileRecord record = metadataIndex.get(fileName);
+        if (record != null && record.getContentHash() != null) {
+            // 去重存储的文件在内容块目录中，与存储目录中的同名文件无关
+            return null;
+        }
+
+        if (!Files.isRegularFile(path)) {
+            // 布局迁移时文件只是移动到另一种布局下，仍能找到时保留记录
+            if (record == null || Files.isRegularFile(storagePaths.locate(fileName))
+                    || metadataIndex.remove(fileName) == null) {
+                return null;
+            }
+            fileInfoCache.invalidate(fileName);
+            return "deleted";
+        }
+
+        if (record == null) {
+            FileRecord created = readFileRecord(path);
+            if (created == null || !metadataIndex.putIfAbsent(created)) {
+                return null;
+            }
+            fileInfoCache.invalidate(fileName);
+            return "created";
+        }
+
+        FileRecord refreshed = refreshRecord(fileName, record);
+        if (refreshed == record) {
+            return null;
+        }
+        fileInfoCache.invalidate(fileName);
+        return refreshed != null ? "modified" : null;
+    }
+
+    /**
+     * 存储目录中的全部文件，一次列出后交给线程池并行处理
+     */
+    List<Path> listStoredFiles() throws IOException {
+        try (Stream<Path> stream = storagePaths.listFiles()) {
+            return stream.collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 按缓存容量为最新的文件预先创建 FileInfo，首次列表请求不再逐个创建
+     *
+     * @return 预先创建的条目数
+     */
+    int warmFileInfoCache(ForkJoinPool pool, AtomicLong processed) {
+        List<FileRecord> newest = metadataIndex.newestFirst().stream()
+                .limit(cacheMaxSize)
+                .collect(Collectors.toList());
+        pool.submit(() -> newest.parallelStream().forEach(record -> {
+            toFileInfo(record);
+            processed.incrementAndGet();
+        })).join();
+        return newest.size();
     }
 
     /**
@@ -51,52 +280,300 @@ public class FileStorageService {
      * 存储文件（新接口，支持分类和上传用户）
      */
     public FileInfo storeFile(MultipartFile file, FileCategory category, String uploadUser) {
+        return recordUpload(file.getOriginalFilename(), category,
+                () -> storeMultipartFile(file, category, uploadUser));
+    }
+
+    private FileInfo storeMultipartFile(MultipartFile file, FileCategory category, String uploadUser) {
         // 验证文件
         validateFile(file);
 
         // 清理文件名
-        String originalFileName = StringUtils.cleanPath(Objects.requireNonNull(file.getOriginalFilename()));
-        String fileExtension = getFileExtension(originalFileName);
-        String fileName = generateUniqueFileName(originalFileName);
-
-        try {
-            // 检查文件名是否包含非法字符
-            if (fileName.contains("..")) {
-                throw new RuntimeException("文件名包含非法路径序列: " + fileName);
+        String originalFileName = sanitizeFileName(file.getOriginalFilename());
+
+        if (blobStore.isEnabled() || storageCodecFor(originalFileName) != null) {
+            // 去重模式下边复制边计算内容哈希，压缩存储时边复制边压缩
+            try {
+                return storeStream(file.getInputStream(), originalFileName, category, uploadUser);
+            } catch (IOException ex) {
+                throw new RuntimeException("无法存储文件 " + originalFileName + "，请重试!", ex);
             }
+        }
 
+        String fileName = newStoredFileName(originalFileName);
+
+        try {
             // 复制文件到目标位置
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
+            Path targetLocation = storagePaths.target(fileName);
+            Files.createDirectories(targetLocation.getParent());
             Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String contentType = detectContentType(targetLocation, originalFileName, null);
+
+            return registerFileInfo(fileName, originalFileName, file.getSize(), contentType,
+                    category, uploadUser, targetLocation, null, null);
+
+        } catch (IOException ex) {
+            throw new RuntimeException("无法存储文件 " + fileName + "，请重试!", ex);
+        }
+    }
+
+    /**
+     * 以流的方式存储文件：数据直接写入存储目录下的 .incoming 暂存目录，写完后重命名到最终位置，
+     * 整个过程不经过 servlet 容器的临时文件。去重模式下在复制的同时计算内容哈希，压缩存储时在复制的同时压缩
+     */
+    public FileInfo storeFile(InputStream input, String originalFileName, FileCategory category, String uploadUser) {
+        return recordUpload(originalFileName, category,
+                () -> storeStream(input, originalFileName, category, uploadUser));
+    }
+
+    private FileInfo storeStream(InputStream input, String originalFileName, FileCategory category,
+                                 String uploadUser) {
+        originalFileName = sanitizeFileName(originalFileName);
+        validateUpload(originalFileName, 0);
+
+        Path stagingFile = this.incomingLocation.resolve(UUID.randomUUID() + ".tmp");
+        MessageDigest digest = blobStore.isEnabled() ? BlobStore.newDigest() : null;
+        StorageCodec codec = storageCodecFor(originalFileName);
+        try {
+            long size = copyWithLimit(input, stagingFile, digest, codec);
+            if (size == 0) {
+                throw new RuntimeException("文件不能为空");
+            }
+            return storeCompletedFile(stagingFile, originalFileName, category, uploadUser,
+                    digest != null ? BlobStore.toHex(digest) : null, codec, size);
+        } catch (IOException ex) {
+            throw new RuntimeException("无法存储文件 " + originalFileName + "，请重试!", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(stagingFile);
+            } catch (IOException ignored) {
+                // 暂存文件已被移动或无法删除
+            }
+        }
+    }
 
-            // 自动确定文件分类（如果未指定）
-            if (category == null) {
-                category = determineFileCategory(fileExtension);
+    /**
+     * 记录上传耗时、字节数和结果；失败时按文件扩展名确定分类标签
+     */
+    private FileInfo recordUpload(String originalFileName, FileCategory category, Supplier<FileInfo> upload) {
+        FileMetrics.Transfer transfer = fileMetrics.startUpload();
+        transfer.setCategory(category != null ? category : extensionRegistry.categoryOfFile(originalFileName));
+        try {
+            FileInfo fileInfo = upload.get();
+            transfer.setCategory(fileInfo.getCategory());
+            transfer.setBytes(fileInfo.getSize());
+            transfer.finish(FileMetrics.OUTCOME_SUCCESS);
+            log.atInfo()
+                    .addKeyValue("file", fileInfo.getFilename())
+                    .addKeyValue("originalFile", originalFileName)
+                    .addKeyValue("bytes", fileInfo.getSize())
+                    .addKeyValue("durationMs", transfer.getDurationMillis())
+                    .log("上传完成");
+            return fileInfo;
+        } finally {
+            // 已成功结束时不再记录
+            transfer.finish(FileMetrics.OUTCOME_FAILURE);
+        }
+    }
+
+    /**
+     * 复制输入流到目标文件，超过最大文件大小时立即中止；digest 不为 null 时同时计算哈希，
+     * codec 不为 null 时按该编码压缩写入
+     *
+     * @return 原始（未压缩）字节数
+     */
+    private long copyWithLimit(InputStream input, Path target, MessageDigest digest, StorageCodec codec)
+            throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        OutputStream file = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW);
+        try (OutputStream output = codec != null ? codec.encode(file) : file) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxFileSize) {
+                    throw new RuntimeException("文件大小不能超过 " + formatFileSize(maxFileSize));
+                }
+                output.write(buffer, 0, read);
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
             }
+        }
+        return total;
+    }
 
-            // 使用默认构造函数和setter创建FileInfo
-            FileInfo fileInfo = new FileInfo();
-            fileInfo.setFilename(fileName);
-            fileInfo.setOriginalFilename(originalFileName);
-            fileInfo.setSize(file.getSize());
-            fileInfo.setFileType(file.getContentType());
-            fileInfo.setUploadTime(LocalDateTime.now());
-            fileInfo.setCategory(category);
-            fileInfo.setExtension(fileExtension);
-            fileInfo.setUploadUser(uploadUser);
-            fileInfo.setFilePath(targetLocation.toString());
-            fileInfo.setDownloadUrl("/download/" + fileName);
-
-            // 缓存文件信息
-            fileInfoCache.put(fileName, fileInfo);
+    /**
+     * 将已经完整写入磁盘的临时文件移入存储目录（分片上传合并完成后调用）
+     * 临时文件必须与存储目录位于同一文件系统，这样移动只是一次重命名
+     */
+    public FileInfo storeCompletedFile(Path source, String originalFileName, FileCategory category,
+                                       String uploadUser) {
+        return recordUpload(originalFileName, category,
+                () -> storeMergedFile(source, originalFileName, category, uploadUser));
+    }
 
+    private FileInfo storeMergedFile(Path source, String originalFileName, FileCategory category,
+                                     String uploadUser) {
+        originalFileName = sanitizeFileName(originalFileName);
+        StorageCodec codec = storageCodecFor(originalFileName);
+        if (codec == null) {
+            try {
+                return storeCompletedFile(source, originalFileName, category, uploadUser, null, null,
+                        Files.size(source));
+            } catch (IOException ex) {
+                throw new RuntimeException("无法存储文件 " + originalFileName + "，请重试!", ex);
+            }
+        }
+
+        // 压缩存储：合并后的文件压缩到暂存目录，再按普通流程移入存储目录
+        Path stagingFile = this.incomingLocation.resolve(UUID.randomUUID() + ".tmp");
+        try (InputStream input = Files.newInputStream(source)) {
+            long size = copyWithLimit(input, stagingFile, null, codec);
+            FileInfo fileInfo = storeCompletedFile(stagingFile, originalFileName, category, uploadUser,
+                    null, codec, size);
+            Files.deleteIfExists(source);
             return fileInfo;
+        } catch (IOException ex) {
+            throw new RuntimeException("无法存储文件 " + originalFileName + "，请重试!", ex);
+        } finally {
+            try {
+                Files.deleteIfExists(stagingFile);
+            } catch (IOException ignored) {
+                // 暂存文件已被移动或无法删除
+            }
+        }
+    }
+
+    /**
+     * @param originalFileName 已经过 {@link #sanitizeFileName(String)} 处理的原始文件名
+     * @param contentHash 接收时已计算的内容哈希，去重模式下为 null 时读取文件计算
+     * @param codec       source 已按该编码压缩，未压缩为 null
+     * @param size        原始（未压缩）字节数
+     */
+    private FileInfo storeCompletedFile(Path source, String originalFileName, FileCategory category,
+                                        String uploadUser, String contentHash, StorageCodec codec, long size) {
+        String fileName = newStoredFileName(originalFileName);
+
+        try {
+            validateUpload(originalFileName, size);
+
+            // 按内容和扩展名识别类型，不采用客户端声明的类型
+            String contentType = detectContentType(source, originalFileName, codec);
+
+            if (blobStore.isEnabled()) {
+                return storeBlob(source, fileName, originalFileName, size, contentType, category, uploadUser,
+                        contentHash != null ? contentHash : BlobStore.hash(source));
+            }
+
+            Path targetLocation = storagePaths.target(fileName);
+            Files.createDirectories(targetLocation.getParent());
+            try {
+                Files.move(source, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(source, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            return registerFileInfo(fileName, originalFileName, size, contentType,
+                    category, uploadUser, targetLocation, null, codec);
 
         } catch (IOException ex) {
             throw new RuntimeException("无法存储文件 " + fileName + "，请重试!", ex);
         }
     }
 
+    /**
+     * 去重模式：相同内容已存在时只增加一条引用，不再写入内容
+     */
+    private FileInfo storeBlob(Path source, String fileName, String originalFileName, long size,
+                               String contentType, FileCategory category, String uploadUser,
+                               String contentHash) throws IOException {
+        ReentrantLock lock = blobStore.lockFor(contentHash);
+        lock.lock();
+        try {
+            Path blob = blobStore.adopt(source, contentHash);
+            return registerFileInfo(fileName, originalFileName, size, contentType,
+                    category, uploadUser, blob, contentHash, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 构建文件信息并加入缓存，校验和、缩略图等耗时工作由后处理任务异步完成
+     */
+    private FileInfo registerFileInfo(String fileName, String originalFileName, long size, String contentType,
+                                      FileCategory category, String uploadUser, Path targetLocation,
+                                      String contentHash, StorageCodec codec) {
+        String fileExtension = extensionRegistry.extensionOf(originalFileName);
+
+        // 自动确定文件分类（如果未指定）
+        if (category == null) {
+            category = extensionRegistry.categoryOf(fileExtension);
+        }
+
+        // 使用默认构造函数和setter创建FileInfo
+        FileInfo fileInfo = new FileInfo();
+        fileInfo.setFilename(fileName);
+        fileInfo.setOriginalFilename(originalFileName);
+        fileInfo.setSize(size);
+        fileInfo.setFileType(contentType);
+        fileInfo.setUploadTime(LocalDateTime.now());
+        fileInfo.setCategory(category);
+        fileInfo.setExtension(fileExtension);
+        fileInfo.setUploadUser(uploadUser);
+        fileInfo.setFilePath(targetLocation.toString());
+        fileInfo.setDownloadUrl("/download/" + fileName);
+        fileInfo.setContentHash(contentHash);
+        fileInfo.setStorageCodec(codec);
+        // 去重存储时已经算出内容的 SHA-256，直接作为校验和
+        fileInfo.setChecksum(contentHash);
+
+        // 写入元数据索引并缓存文件信息
+        long lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(targetLocation).toMillis();
+        } catch (IOException e) {
+            lastModified = System.currentTimeMillis();
+        }
+        metadataIndex.put(new FileRecord(fileName, originalFileName, size,
+                fileInfo.getUploadTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                lastModified, contentType, category, uploadUser, contentHash, codec, contentHash));
+        fileInfoCache.put(fileName, fileInfo);
+        eventPublisher.publishEvent(new FileStoredEvent(fileName));
+
+        return fileInfo;
+    }
+
+    /**
+     * 新上传的文件在磁盘上使用的压缩编码，不压缩时返回 null
+     */
+    private StorageCodec storageCodecFor(String originalFileName) {
+        if (!compressionEnabled || blobStore.isEnabled()) {
+            return null;
+        }
+        String extension = extensionRegistry.extensionOf(originalFileName);
+        return extension != null && compressedExtensions.contains(extension) ? StorageCodec.GZIP : null;
+    }
+
+    /**
+     * 打开文件的原始内容（压缩存储的文件边读边解压）
+     *
+     * @param file 记录对应的实际文件（{@link #resolveFilePath(String)} 的结果）
+     */
+    public InputStream openContent(FileRecord record, Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (record.getStorageCodec() == null) {
+            return input;
+        }
+        try {
+            return record.getStorageCodec().decode(input);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
     /**
      * 验证文件
      */
@@ -105,18 +582,25 @@ public class FileStorageService {
             throw new RuntimeException("文件不能为空");
         }
 
-        // 验证文件大小 - 使用配置的最大值
-        if (file.getSize() > maxFileSize) {
-            throw new RuntimeException("文件大小不能超过 " + formatFileSize(maxFileSize));
-        }
-
         // 验证文件类型
         String originalFileName = file.getOriginalFilename();
         if (originalFileName == null) {
             throw new RuntimeException("文件名不能为空");
         }
 
-        String fileExtension = getFileExtension(originalFileName);
+        validateUpload(originalFileName, file.getSize());
+    }
+
+    /**
+     * 验证上传文件的大小和扩展名（不依赖MultipartFile，供分片上传等场景使用）
+     */
+    public void validateUpload(String originalFileName, long size) {
+        // 验证文件大小 - 使用配置的最大值
+        if (size > maxFileSize) {
+            throw new RuntimeException("文件大小不能超过 " + formatFileSize(maxFileSize));
+        }
+
+        String fileExtension = extensionRegistry.extensionOf(originalFileName);
         if (!isAllowedExtension(fileExtension)) {
             throw new RuntimeException("不支持的文件类型: " + fileExtension);
         }
@@ -137,11 +621,37 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * 客户端提交的文件名只保留最后一段（去掉 sub/、C:\dir\ 等目录部分），所有存储入口在写入磁盘前调用
+     */
+    public String sanitizeFileName(String originalFileName) {
+        String fileName = originalFileName != null
+                ? StringUtils.getFilename(StringUtils.cleanPath(originalFileName)) : null;
+        if (!StringUtils.hasText(fileName)) {
+            throw new RuntimeException("文件名不能为空");
+        }
+        if (fileName.contains("..") || fileName.indexOf('\0') >= 0) {
+            throw new RuntimeException("文件名包含非法路径序列: " + originalFileName);
+        }
+        return fileName;
+    }
+
+    /**
+     * 生成新文件的存储文件名，不是合法的单层文件名时拒绝
+     */
+    private String newStoredFileName(String originalFileName) {
+        String fileName = generateUniqueFileName(originalFileName);
+        if (!storagePaths.isValidName(fileName) || fileName.contains("..")) {
+            throw new RuntimeException("文件名包含非法路径序列: " + fileName);
+        }
+        return fileName;
+    }
+
     /**
      * 生成唯一文件名
      */
-    private String generateUniqueFileName(String originalFileName) {
-        String fileExtension = getFileExtension(originalFileName);
+    String generateUniqueFileName(String originalFileName) {
+        String fileExtension = extensionRegistry.extensionOf(originalFileName);
         String baseName = originalFileName;
         if (fileExtension != null && !fileExtension.isEmpty()) {
             baseName = originalFileName.substring(0, originalFileName.lastIndexOf('.'));
@@ -157,62 +667,35 @@ public class FileStorageService {
         }
     }
 
-    /**
-     * 获取文件扩展名
-     */
-    private String getFileExtension(String fileName) {
-        if (fileName == null || fileName.isEmpty()) {
-            return null;
-        }
-        int lastDotIndex = fileName.lastIndexOf('.');
-        if (lastDotIndex > 0 && lastDotIndex < fileName.length() - 1) {
-            return fileName.substring(lastDotIndex + 1).toLowerCase();
-        }
-        return null;
-    }
-
     /**
      * 检查文件扩展名是否允许
      */
-    private boolean isAllowedExtension(String fileExtension) {
-        if (fileExtension == null) return false;
-
-        String[] allowedExts = allowedExtensions.split(",");
-        for (String ext : allowedExts) {
-            if (ext.trim().equalsIgnoreCase(fileExtension)) {
-                return true;
-            }
-        }
-        return false;
+    boolean isAllowedExtension(String fileExtension) {
+        return extensionRegistry.isAllowed(fileExtension);
     }
 
     /**
-     * 根据文件扩展名确定文件分类
+     * 解析存储目录中的文件路径，文件不存在或文件名不合法时返回 null
      */
-    private FileCategory determineFileCategory(String fileExtension) {
-        if (fileExtension == null) return FileCategory.OTHER;
-
-        switch (fileExtension.toLowerCase()) {
-            case "jpg": case "jpeg": case "png": case "gif": case "bmp": case "webp":
-                return FileCategory.IMAGE;
-            case "pdf": case "doc": case "docx": case "txt": case "ppt": case "pptx": case "xls": case "xlsx":
-                return FileCategory.DOCUMENT;
-            case "mp4": case "avi": case "mov": case "wmv": case "flv": case "mkv":
-                return FileCategory.VIDEO;
-            case "mp3": case "wav": case "aac": case "flac":
-                return FileCategory.AUDIO;
-            case "zip": case "rar": case "7z": case "tar": case "gz":
-                return FileCategory.ARCHIVE;
-            case "exe": case "jar": case "msi": case "bat": case "cmd":
-                return FileCategory.EXECUTABLE;
-            default:
-                return FileCategory.OTHER;
+    public Path resolveFilePath(String fileName) {
+        if (!storagePaths.isValidName(fileName)) {
+            return null;
+        }
+        FileRecord record = metadataIndex.get(fileName);
+        if (record != null && record.getContentHash() != null) {
+            Path blob = blobStore.blobPath(record.getContentHash());
+            return Files.isRegularFile(blob) ? blob : null;
         }
+        Path filePath = storagePaths.locate(fileName);
+        return Files.isRegularFile(filePath) ? filePath : null;
     }
 
     public Resource loadFileAsResource(String fileName) {
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+            Path filePath = resolveFilePath(fileName);
+            if (filePath == null) {
+                throw new RuntimeException("文件未找到或不可读: " + fileName);
+            }
             Resource resource = new UrlResource(filePath.toUri());
 
             if (resource.exists() && resource.isReadable()) {
@@ -228,74 +711,284 @@ public class FileStorageService {
     }
 
     /**
-     * 获取所有文件（优先从缓存获取，缓存不存在则从文件系统读取）
+     * 获取所有文件（从元数据索引读取，已按上传时间倒序排列）
      */
     public List<FileInfo> getAllFiles() {
-        try {
-            if (!Files.exists(this.fileStorageLocation)) {
-                return new ArrayList<>();
+        return fileMetrics.timeListing("all", () -> {
+            List<FileInfo> files = new ArrayList<>(metadataIndex.size());
+            for (FileRecord record : metadataIndex.newestFirst()) {
+                files.add(toFileInfo(record));
             }
+            return files;
+        });
+    }
 
-            List<FileInfo> files = Files.list(this.fileStorageLocation)
-                    .filter(Files::isRegularFile)
+    /**
+     * 分页获取文件，category 为 null 时返回所有分类
+     *
+     * @param cursor 上一页返回的游标，不为空时从游标位置续读并忽略 offset
+     * @throws IllegalArgumentException limit 不大于 0，或游标无效
+     */
+    public FilePage getFiles(FileCategory category, FileSortField sort, boolean ascending, String cursor,
+                             int offset, int limit) {
+        return fileMetrics.timeListing("page", () -> page(category, sort, ascending, cursor, offset, limit));
+    }
+
+    /**
+     * 按关键字和过滤条件搜索文件，结果按相关度排序（只查询内存中的搜索索引，不访问文件系统）
+     *
+     * @throws IllegalArgumentException offset + limit 超过 file.search.max-result-window
+     */
+    public FileSearchResult searchFiles(FileSearchQuery query, int offset, int limit) {
+        int start = Math.max(0, offset);
+        int count = Math.max(0, limit);
+        if ((long) start + count > maxSearchResultWindow) {
+            throw new IllegalArgumentException("搜索结果最多只能查看前 " + maxSearchResultWindow + " 条，请增加关键字或过滤条件");
+        }
+        return fileMetrics.timeListing("search", () -> {
+            FileSearchIndex.Hits hits = metadataIndex.search(query, start, count);
+            List<FileInfo> files = hits.getRecords().stream()
+                    .map(this::toFileInfo)
+                    .collect(Collectors.toList());
+            return new FileSearchResult(files, hits.getTotal());
+        });
+    }
+
+    public int getMaxSearchResultWindow() {
+        return maxSearchResultWindow;
+    }
+
+    private FilePage page(FileCategory category, FileSortField sort, boolean ascending, String cursor,
+                          int offset, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("每页数量必须大于 0: " + limit);
+        }
+        FileRecord after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = FileListCursor.decode(cursor, sort, ascending);
+            offset = 0;
+        }
+
+        // 多取一条用于判断是否还有下一页
+        List<FileRecord> records = metadataIndex.page(category, sort, ascending, after, Math.max(0, offset),
+                (int) Math.min((long) limit + 1, Integer.MAX_VALUE));
+        String nextCursor = null;
+        if (records.size() > limit) {
+            records = records.subList(0, limit);
+            nextCursor = FileListCursor.encode(sort, ascending, records.get(limit - 1));
+        }
+
+        List<FileInfo> files = records.stream()
+                .map(this::toFileInfo)
+                .collect(Collectors.toList());
+        return new FilePage(files, nextCursor);
+    }
+
+    /**
+     * 文件数量，category 为 null 时统计所有分类
+     */
+    public long countFiles(FileCategory category) {
+        return metadataIndex.count(category);
+    }
+
+    /**
+     * 并行读取文件信息重建元数据索引（索引不存在或需要与目录重新同步时使用）
+     * <p>
+     * 重建期间服务照常接收上传和删除：扫描在 {@link FileMetadataIndex#beginRebuild()} 之后进行，
+     * 其间被修改的文件在 {@link FileMetadataIndex#completeRebuild(Collection)} 中以索引的当前状态为准
+     */
+    private int rebuildIndex(List<Path> files, ForkJoinPool pool, AtomicLong processed) {
+        Timer.Sample sample = fileMetrics.startTimer();
+        metadataIndex.beginRebuild();
+        boolean completed = false;
+        try {
+            List<FileRecord> records = pool.submit(() -> files.parallelStream()
                     .map(path -> {
-                        try {
-                            String fileName = path.getFileName().toString();
-
-                            // 优先从缓存获取
-                            FileInfo cachedInfo = fileInfoCache.get(fileName);
-                            if (cachedInfo != null) {
-                                return cachedInfo;
-                            }
-
-                            // 缓存不存在，从文件系统读取
-                            String originalFileName = extractOriginalFileName(fileName);
-                            String contentType = Files.probeContentType(path);
-                            if (contentType == null) {
-                                contentType = "application/octet-stream";
-                            }
-
-                            // 使用默认构造函数和setter创建FileInfo
-                            FileInfo fileInfo = new FileInfo();
-                            fileInfo.setFilename(fileName);
-                            fileInfo.setOriginalFilename(originalFileName);
-                            fileInfo.setSize(Files.size(path));
-                            fileInfo.setFileType(contentType);
-                            fileInfo.setUploadTime(
-                                    Files.getLastModifiedTime(path).toInstant()
-                                            .atZone(java.time.ZoneId.systemDefault())
-                                            .toLocalDateTime()
-                            );
-
-                            // 设置额外信息
-                            String fileExtension = getFileExtension(originalFileName);
-                            fileInfo.setCategory(determineFileCategory(fileExtension));
-                            fileInfo.setExtension(fileExtension);
-                            fileInfo.setFilePath(path.toString());
-                            fileInfo.setDownloadUrl("/download/" + fileName);
-
-                            // 加入缓存
-                            fileInfoCache.put(fileName, fileInfo);
-
-                            return fileInfo;
-                        } catch (IOException e) {
-                            System.err.println("无法读取文件信息: " + path.getFileName() + " - " + e.getMessage());
-                            return null;
-                        }
+                        // 保留已有记录中的上传用户、指定分类等信息
+                        FileRecord existing = metadataIndex.get(path.getFileName().toString());
+                        FileRecord record = existing != null ? existing : readFileRecord(path);
+                        processed.incrementAndGet();
+                        return record;
                     })
                     .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toCollection(ArrayList::new))).join();
+
+            Set<String> scannedNames = records.stream()
+                    .map(FileRecord::getFilename)
+                    .collect(Collectors.toSet());
+            for (FileRecord record : metadataIndex.newestFirst()) {
+                if (record.getContentHash() != null) {
+                    // 保留内容块仍然存在的去重记录
+                    if (Files.isRegularFile(blobStore.blobPath(record.getContentHash()))) {
+                        records.add(record);
+                    }
+                } else if (!scannedNames.contains(record.getFilename())
+                        && Files.isRegularFile(storedPath(record))) {
+                    // 列出目录之后、开始重建之前上传的文件
+                    records.add(record);
+                }
+            }
 
-            // 按上传时间倒序排列
-            files.sort((f1, f2) -> f2.getUploadTime().compareTo(f1.getUploadTime()));
-            return files;
+            int count = metadataIndex.completeRebuild(records);
+            completed = true;
+            fileInfoCache.invalidateAll();
+            return count;
+        } finally {
+            if (!completed) {
+                metadataIndex.abortRebuild();
+            }
+            fileMetrics.recordFilesystem(sample, "file.index.rebuild");
+        }
+    }
 
+    /**
+     * 从文件系统读取文件信息（不在索引中的文件）
+     */
+    private FileRecord readFileRecord(Path path) {
+        try {
+            String fileName = path.getFileName().toString();
+            String originalFileName = extractOriginalFileName(fileName);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            String extension = extensionRegistry.extensionOf(originalFileName);
+            StorageCodec codec = extension != null && compressedExtensions.contains(extension)
+                    && isGzipFile(path) ? StorageCodec.GZIP : null;
+            String contentType = detectContentType(path, originalFileName, codec);
+            return new FileRecord(fileName, originalFileName, storedContentSize(path, codec), lastModified,
+                    lastModified, contentType, extensionRegistry.categoryOf(extension), null, null, codec);
         } catch (IOException e) {
-            System.err.println("无法列出文件: " + e.getMessage());
-            return new ArrayList<>();
+            log.warn("无法读取文件信息: {} - {}", path.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 识别文件内容的 MIME 类型，压缩存储的文件按解压后的内容识别
+     */
+    private String detectContentType(Path path, String fileName, StorageCodec codec)
+            throws IOException {
+        Timer.Sample sample = fileMetrics.startTimer();
+        try {
+            if (codec == null) {
+                return contentTypeDetector.detect(path, fileName);
+            }
+            try (InputStream input = codec.decode(Files.newInputStream(path))) {
+                return contentTypeDetector.detect(input, fileName);
+            }
+        } finally {
+            fileMetrics.recordFilesystem(sample, "file.content-type.probe");
         }
     }
 
+    /**
+     * 文件是否以 gzip 头开头（索引丢失后识别压缩存储的文件，这些扩展名的原始内容不会以该头开头）
+     */
+    private static boolean isGzipFile(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return input.read() == 0x1f && input.read() == 0x8b;
+        }
+    }
+
+    /**
+     * 文件的原始大小：压缩存储的文件读取 gzip 尾部记录的长度（对 4GB 取模，单个文件不超过 2GB 时是准确值）
+     */
+    private static long storedContentSize(Path path, StorageCodec codec) throws IOException {
+        if (codec == null) {
+            return Files.size(path);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, Math.max(0, channel.size() - 4));
+            trailer.flip();
+            return trailer.remaining() == 4 ? Integer.toUnsignedLong(trailer.getInt()) : 0;
+        }
+    }
+
+    /**
+     * 索引记录转换为 FileInfo（优先从缓存获取）
+     */
+    private FileInfo toFileInfo(FileRecord record) {
+        return fileInfoCache.get(record.getFilename(), fileName -> createFileInfo(record));
+    }
+
+    private FileInfo createFileInfo(FileRecord record) {
+        String fileName = record.getFilename();
+
+        // 使用默认构造函数和setter创建FileInfo
+        FileInfo fileInfo = new FileInfo();
+        fileInfo.setFilename(fileName);
+        fileInfo.setOriginalFilename(record.getOriginalFilename());
+        fileInfo.setSize(record.getSize());
+        fileInfo.setFileType(record.getFileType());
+        fileInfo.setUploadTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getUploadTime()),
+                ZoneId.systemDefault()));
+
+        // 设置额外信息
+        fileInfo.setCategory(record.getCategory());
+        fileInfo.setExtension(extensionRegistry.extensionOf(record.getOriginalFilename()));
+        fileInfo.setUploadUser(record.getUploadUser());
+        fileInfo.setFilePath(storedPath(record).toString());
+        fileInfo.setDownloadUrl("/download/" + fileName);
+        fileInfo.setContentHash(record.getContentHash());
+        fileInfo.setStorageCodec(record.getStorageCodec());
+        fileInfo.setChecksum(record.getChecksum());
+        return fileInfo;
+    }
+
+    /**
+     * 记录对应的实际文件：去重存储的文件指向内容块，其余在存储目录下
+     */
+    private Path storedPath(FileRecord record) {
+        if (record.getContentHash() != null) {
+            return blobStore.blobPath(record.getContentHash());
+        }
+        return storagePaths.locate(record.getFilename());
+    }
+
+    /**
+     * 缓存条目过期后按文件大小和修改时间重新校验，文件被外部修改时更新索引，文件已删除时移除
+     */
+    private FileInfo revalidate(String fileName, FileInfo oldValue) {
+        FileRecord record = metadataIndex.get(fileName);
+        if (record == null) {
+            return null;
+        }
+
+        try {
+            FileRecord refreshed = refreshRecord(fileName, record);
+            if (refreshed == record) {
+                return oldValue;
+            }
+            return refreshed != null ? createFileInfo(refreshed) : null;
+
+        } catch (NoSuchFileException e) {
+            metadataIndex.remove(fileName);
+            return null;
+        } catch (IOException e) {
+            log.warn("校验文件信息失败: {} - {}", fileName, e.getMessage());
+            return oldValue;
+        }
+    }
+
+    /**
+     * 按文件当前的大小和修改时间更新索引记录：没有变化时返回原记录，记录已被并发删除时返回 null
+     */
+    private FileRecord refreshRecord(String fileName, FileRecord record) throws IOException {
+        Path path = storedPath(record);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // 压缩存储的文件磁盘大小与原始大小不同，只比较修改时间
+        boolean sizeUnchanged = record.getStorageCodec() != null || attributes.size() == record.getSize();
+        if (sizeUnchanged && lastModified == record.getLastModified()) {
+            return record;
+        }
+
+        long size = storedContentSize(path, record.getStorageCodec());
+        return metadataIndex.update(fileName, current -> new FileRecord(fileName,
+                current.getOriginalFilename(), size, current.getUploadTime(), lastModified,
+                current.getFileType(), current.getCategory(), current.getUploadUser(),
+                current.getContentHash(), current.getStorageCodec()));
+    }
+
     /**
      * 从存储的文件名中提取原始文件名
      */
@@ -315,9 +1008,11 @@ public class FileStorageService {
      * 获取特定分类的文件
      */
     public List<FileInfo> getFilesByCategory(FileCategory category) {
-        return getAllFiles().stream()
-                .filter(file -> file.getCategory() == category)
-                .collect(Collectors.toList());
+        return fileMetrics.timeListing("category", () ->
+                metadataIndex.page(category, FileSortField.UPLOAD_TIME, false, null, 0, Integer.MAX_VALUE - 1)
+                        .stream()
+                        .map(this::toFileInfo)
+                        .collect(Collectors.toList()));
     }
 
     /**
@@ -329,149 +1024,216 @@ public class FileStorageService {
     }
 
     /**
-     * 获取分类统计信息
+     * 获取分类统计信息（由元数据索引实时维护，不遍历文件）
      */
     public Map<FileCategory, Long> getCategoryStatistics() {
-        try {
-            List<FileInfo> allFiles = getAllFiles();
-            return allFiles.stream()
-                    .collect(Collectors.groupingBy(FileInfo::getCategory, Collectors.counting()));
-        } catch (Exception e) {
-            System.err.println("无法获取分类统计: " + e.getMessage());
-            return new HashMap<>();
+        Map<FileCategory, Long> statistics = new EnumMap<>(FileCategory.class);
+        for (FileCategory category : FileCategory.values()) {
+            long count = metadataIndex.count(category);
+            if (count > 0) {
+                statistics.put(category, count);
+            }
         }
+        return statistics;
+    }
+
+    /**
+     * 获取各分类占用的字节数
+     */
+    public Map<FileCategory, Long> getCategorySizes() {
+        Map<FileCategory, Long> sizes = new EnumMap<>(FileCategory.class);
+        for (FileCategory category : FileCategory.values()) {
+            if (metadataIndex.count(category) > 0) {
+                sizes.put(category, metadataIndex.totalBytes(category));
+            }
+        }
+        return sizes;
     }
 
     /**
      * 删除文件
      */
     public boolean deleteFile(String fileName) {
+        FileRecord record = metadataIndex.get(fileName);
+        FileCategory category = record != null ? record.getCategory()
+                : extensionRegistry.categoryOfFile(extractOriginalFileName(fileName));
+        Timer.Sample sample = fileMetrics.startTimer();
+        String outcome = FileMetrics.OUTCOME_FAILURE;
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+            boolean deleted = record != null && record.getContentHash() != null
+                    ? deleteBlobReference(record) : deleteStoredFile(fileName);
+            outcome = deleted ? FileMetrics.OUTCOME_SUCCESS : FileMetrics.OUTCOME_NOT_FOUND;
+            return deleted;
+        } finally {
+            fileMetrics.recordDelete(sample, category, outcome);
+        }
+    }
 
+    private boolean deleteStoredFile(String fileName) {
+
+        try {
             // 安全检查：确保文件在上传目录内
-            if (!filePath.startsWith(this.fileStorageLocation)) {
+            if (!storagePaths.isValidName(fileName)) {
                 throw new SecurityException("不允许删除该文件路径");
             }
+            // 与布局迁移互斥：文件正在两种布局之间移动时不会漏删
+            boolean deleted;
+            ReentrantLock lock = storagePaths.lockFor(fileName);
+            lock.lock();
+            try {
+                deleted = Files.deleteIfExists(storagePaths.locate(fileName));
+            } finally {
+                lock.unlock();
+            }
 
-            boolean deleted = Files.deleteIfExists(filePath);
-
-            // 从缓存中移除
-            if (deleted) {
-                fileInfoCache.remove(fileName);
+            // 从索引和缓存中移除（文件已被外部删除时也清理索引）
+            if (metadataIndex.remove(fileName) != null || deleted) {
+                fileInfoCache.invalidate(fileName);
             }
 
-            System.out.println("删除文件: " + fileName + ", 结果: " + deleted);
+            log.debug("删除文件: {}, 结果: {}", fileName, deleted);
             return deleted;
 
         } catch (IOException e) {
-            System.err.println("删除文件时出错: " + fileName + " - " + e.getMessage());
+            log.warn("删除文件时出错: {} - {}", fileName, e.getMessage());
             throw new RuntimeException("无法删除文件: " + fileName, e);
         } catch (SecurityException e) {
-            System.err.println("安全异常: " + e.getMessage());
+            log.warn("安全异常: {}", e.getMessage());
             throw new RuntimeException("文件删除被拒绝: " + e.getMessage());
         }
     }
 
+    /**
+     * 删除去重存储文件的一条引用，最后一条引用删除时才删除内容块
+     */
+    private boolean deleteBlobReference(FileRecord record) {
+        String contentHash = record.getContentHash();
+        boolean removed;
+        boolean blobDeleted = false;
+        ReentrantLock lock = blobStore.lockFor(contentHash);
+        lock.lock();
+        try {
+            removed = metadataIndex.remove(record.getFilename()) != null;
+            if (removed && metadataIndex.blobReferences(contentHash) == 0) {
+                try {
+                    blobDeleted = blobStore.delete(contentHash);
+                } catch (IOException e) {
+                    // 索引已删除，内容块会在下次启动时作为未引用内容清理
+                    log.warn("删除内容块失败: {} - {}", contentHash, e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        fileInfoCache.invalidate(record.getFilename());
+
+        log.debug("删除文件: {}, 结果: {}{}", record.getFilename(), removed, blobDeleted ? "（内容块已释放）" : "");
+        return removed;
+    }
+
     /**
      * 获取文件信息
      */
     public FileInfo getFileInfo(String fileName) {
+        Timer.Sample sample = fileMetrics.startTimer();
+
         // 优先从缓存获取
-        FileInfo cachedInfo = fileInfoCache.get(fileName);
+        FileInfo cachedInfo = fileInfoCache.getIfPresent(fileName);
         if (cachedInfo != null) {
+            fileMetrics.recordLookup(sample, "cache");
             return cachedInfo;
         }
 
-        // 缓存不存在，从文件系统获取
-        try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            if (!Files.exists(filePath)) {
-                return null;
-            }
-
-            String originalFileName = extractOriginalFileName(fileName);
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-
-            // 使用默认构造函数和setter创建FileInfo
-            FileInfo fileInfo = new FileInfo();
-            fileInfo.setFilename(fileName);
-            fileInfo.setOriginalFilename(originalFileName);
-            fileInfo.setSize(Files.size(filePath));
-            fileInfo.setFileType(contentType);
-            fileInfo.setUploadTime(
-                    Files.getLastModifiedTime(filePath).toInstant()
-                            .atZone(java.time.ZoneId.systemDefault())
-                            .toLocalDateTime()
-            );
-
-            // 设置额外信息
-            String fileExtension = getFileExtension(originalFileName);
-            fileInfo.setCategory(determineFileCategory(fileExtension));
-            fileInfo.setExtension(fileExtension);
-            fileInfo.setFilePath(filePath.toString());
-            fileInfo.setDownloadUrl("/download/" + fileName);
-
-            // 加入缓存
-            fileInfoCache.put(fileName, fileInfo);
-
+        FileRecord record = metadataIndex.get(fileName);
+        if (record != null) {
+            FileInfo fileInfo = toFileInfo(record);
+            fileMetrics.recordLookup(sample, "index");
             return fileInfo;
+        }
 
-        } catch (IOException e) {
-            System.err.println("获取文件信息失败: " + fileName + " - " + e.getMessage());
+        // 索引中不存在（例如直接放入存储目录的文件），从文件系统获取并加入索引
+        Path filePath = resolveFilePath(fileName);
+        record = filePath != null ? readFileRecord(filePath) : null;
+        if (record == null) {
+            fileMetrics.recordLookup(sample, "missing");
             return null;
         }
+        metadataIndex.put(record);
+        FileInfo fileInfo = toFileInfo(record);
+        fileMetrics.recordLookup(sample, "filesystem");
+        return fileInfo;
+    }
+
+    /**
+     * 文件的索引记录，不存在时返回 null
+     */
+    public FileRecord getFileRecord(String fileName) {
+        return metadataIndex.get(fileName);
+    }
+
+    /**
+     * 记录后处理算出的校验和；计算期间文件被替换（大小或修改时间已变化）时不记录
+     *
+     * @param computedFrom 计算校验和时的索引记录
+     */
+    public void updateChecksum(FileRecord computedFrom, String checksum) {
+        String fileName = computedFrom.getFilename();
+        metadataIndex.update(fileName, record -> record.getSize() != computedFrom.getSize()
+                || record.getLastModified() != computedFrom.getLastModified()
+                || Objects.equals(record.getChecksum(), checksum) ? record
+                : new FileRecord(fileName, record.getOriginalFilename(), record.getSize(), record.getUploadTime(),
+                record.getLastModified(), record.getFileType(), record.getCategory(), record.getUploadUser(),
+                record.getContentHash(), record.getStorageCodec(), checksum));
+        fileInfoCache.invalidate(fileName);
     }
 
     /**
      * 获取存储目录信息
      */
     public Map<String, Object> getStorageInfo() {
+        // 文件数和总大小来自元数据索引的统计，不扫描目录
         Map<String, Object> info = new HashMap<>();
-        try {
-            if (Files.exists(this.fileStorageLocation)) {
-                long totalSize = Files.list(this.fileStorageLocation)
-                        .filter(Files::isRegularFile)
-                        .mapToLong(path -> {
-                            try {
-                                return Files.size(path);
-                            } catch (IOException e) {
-                                return 0L;
-                            }
-                        })
-                        .sum();
-
-                long fileCount = Files.list(this.fileStorageLocation)
-                        .filter(Files::isRegularFile)
-                        .count();
-
-                info.put("storagePath", this.fileStorageLocation.toString());
-                info.put("totalSize", totalSize);
-                info.put("totalFiles", fileCount);
-                info.put("freeSpace", this.fileStorageLocation.toFile().getFreeSpace());
-                info.put("usableSpace", this.fileStorageLocation.toFile().getUsableSpace());
-                info.put("totalSpace", this.fileStorageLocation.toFile().getTotalSpace());
-            }
-        } catch (IOException e) {
-            System.err.println("获取存储信息失败: " + e.getMessage());
-        }
+        info.put("storagePath", this.fileStorageLocation.toString());
+        info.put("totalSize", metadataIndex.totalBytes(null));
+        info.put("totalFiles", metadataIndex.count(null));
+        info.put("freeSpace", this.fileStorageLocation.toFile().getFreeSpace());
+        info.put("usableSpace", this.fileStorageLocation.toFile().getUsableSpace());
+        info.put("totalSpace", this.fileStorageLocation.toFile().getTotalSpace());
         return info;
     }
 
+    /**
+     * 获取文件存储目录
+     */
+    public Path getFileStorageLocation() {
+        return fileStorageLocation;
+    }
+
+    /**
+     * 文件被移动（例如存储布局迁移）后使缓存中的路径失效
+     */
+    public void evictFromCache(String fileName) {
+        fileInfoCache.invalidate(fileName);
+    }
+
     /**
      * 清空缓存（用于测试或手动刷新）
      */
     public void clearCache() {
-        fileInfoCache.clear();
+        fileInfoCache.invalidateAll();
     }
 
     /**
-     * 获取缓存中的文件数量
+     * 获取缓存中的文件数量（近似值）
      */
     public int getCacheSize() {
-        return fileInfoCache.size();
+        return (int) fileInfoCache.estimatedSize();
+    }
+
+    /**
+     * 获取文件信息缓存（用于注册命中率、淘汰次数等监控指标）
+     */
+    public Cache<String, FileInfo> getFileInfoCache() {
+        return fileInfoCache;
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+// src/main/java/com/djwsj/filemanager/service/FileStoredEvent.java
+package com.djwsj.filemanager.service;
+
+/**
+ * 新文件已写入存储并登记到索引后发布的事件
+ */
+public class FileStoredEvent {
+    private final String filename;
+
+    public FileStoredEvent(String filename) {
+        this.filename = filename;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+}
@@ -0,0 +1,156 @@
+// src/main/java/com/djwsj/filemanager/service/IndexWarmupService.java
+package com.djwsj.filemanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动预热：应用启动后在后台核对（必要时重建）元数据索引，并预先创建文件信息缓存
+ * <p>
+ * 目录扫描和文件信息读取由 fork/join 线程池并行完成，线程数为 file.warmup.parallelism
+ * （读取文件属性主要是 I/O 等待，可以大于 CPU 核数）。预热期间服务照常读写，
+ * 进度通过 /actuator/health 的 indexWarmup 报告，完成前状态为 STARTING。
+ * 核对索引失败时状态为 OUT_OF_SERVICE（保持未就绪，不以不完整的索引对外服务），
+ * 间隔 file.warmup.retry-delay 后重试，直到成功才标记为预热完成。
+ */
+@Service
+public class IndexWarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexWarmupService.class);
+
+    private final FileStorageService fileStorageService;
+    private final int parallelism;
+    private final Duration retryDelay;
+
+    private final CountDownLatch warm = new CountDownLatch(1);
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong cached = new AtomicLong();
+    private volatile String phase = "pending";
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String lastError;
+
+    public IndexWarmupService(FileStorageService fileStorageService,
+                              @Value("${file.warmup.parallelism:8}") int parallelism,
+                              @Value("${file.warmup.retry-delay:30s}") Duration retryDelay) {
+        this.fileStorageService = fileStorageService;
+        this.parallelism = Math.max(1, parallelism);
+        this.retryDelay = retryDelay.isNegative() || retryDelay.isZero() ? Duration.ofSeconds(1) : retryDelay;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        startedAt = System.currentTimeMillis();
+        Thread worker = new Thread(this::warmUp, "index-warmup");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void warmUp() {
+        while (!attempt()) {
+            try {
+                Thread.sleep(retryDelay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 执行一次预热，索引核对失败时返回 false（保持未就绪，稍后重试）
+     */
+    private boolean attempt() {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            phase = "listing";
+            files.set(0);
+            indexed.set(0);
+            cached.set(0);
+            List<Path> storedFiles = fileStorageService.listStoredFiles();
+            files.set(storedFiles.size());
+
+            phase = "indexing";
+            fileStorageService.reconcileIndex(storedFiles, pool, indexed);
+        } catch (IOException | RuntimeException e) {
+            pool.shutdown();
+            lastError = e.toString();
+            phase = "failed";
+            log.warn("元数据索引预热失败，{} 秒后重试: {}", retryDelay.toSeconds(), e.toString());
+            return false;
+        }
+
+        try {
+            phase = "caching";
+            fileStorageService.warmFileInfoCache(pool, cached);
+        } catch (RuntimeException e) {
+            // 索引已完整，缓存在访问时按需创建
+            log.warn("文件信息缓存预热失败: {}", e.toString());
+        } finally {
+            pool.shutdown();
+        }
+
+        finishedAt = System.currentTimeMillis();
+        lastError = null;
+        phase = "warm";
+        warm.countDown();
+        log.atInfo()
+                .addKeyValue("files", files.get())
+                .addKeyValue("cached", cached.get())
+                .addKeyValue("durationMs", finishedAt - startedAt)
+                .log("元数据索引预热完成");
+        return true;
+    }
+
+    public boolean isWarm() {
+        return warm.getCount() == 0;
+    }
+
+    /**
+     * 最近一次预热失败，正在等待重试
+     */
+    public boolean isFailed() {
+        return "failed".equals(phase);
+    }
+
+    /**
+     * 等待预热成功完成（基准测试等需要完整索引的场景使用）
+     *
+     * @return 超时前完成返回 true
+     */
+    public boolean awaitWarm(Duration timeout) throws InterruptedException {
+        return warm.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", phase);
+        status.put("files", files.get());
+        status.put("indexed", indexed.get());
+        status.put("cached", cached.get());
+        if (startedAt > 0) {
+            long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+            status.put("elapsedMs", end - startedAt);
+        }
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,297 @@
+// src/main/java/com/djwsj/filemanager/service/MultipartStreamReader.java
+package com.djwsj.filemanager.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 流式 multipart/form-data 解析器
+ * <p>
+ * 按顺序逐个返回各部分，部分内容通过 {@link #partBody()} 以流的形式读取，
+ * 不会在内存或临时文件中缓存整个请求体。每次只能读取当前部分，读取下一部分前未读完的内容会被跳过。
+ */
+class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+    private static final int MAX_HEADER_COUNT = 32;
+
+    private final InputStream input;
+    private final byte[] delimiter; // \r\n--boundary
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private boolean eof;
+
+    private boolean finished;
+    private PartInputStream currentBody;
+    private Map<String, String> currentHeaders;
+
+    MultipartStreamReader(InputStream input, String boundary) {
+        this.input = input;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // 在流首部补一个 CRLF，使第一个分隔符与后续分隔符格式一致
+        this.buffer[0] = '\r';
+        this.buffer[1] = '\n';
+        this.tail = 2;
+    }
+
+    /**
+     * 从 Content-Type 中提取 boundary 参数
+     */
+    static String extractBoundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        for (String param : contentType.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.regionMatches(true, 0, "boundary=", 0, 9)) {
+                String boundary = trimmed.substring(9);
+                if (boundary.length() >= 2 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+                    boundary = boundary.substring(1, boundary.length() - 1);
+                }
+                return boundary.isEmpty() || boundary.length() > 70 ? null : boundary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 前进到下一部分，返回 false 表示已到达结束分隔符
+     */
+    boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        if (currentBody == null) {
+            // 跳过前导内容直到第一个分隔符
+            new PartInputStream().skipToEnd();
+        } else {
+            currentBody.skipToEnd();
+        }
+
+        // 分隔符之后是 "--"（结束）或 CRLF（下一部分）
+        if (!ensure(2)) {
+            throw new IOException("multipart 请求体意外结束");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            head += 2;
+            finished = true;
+            return false;
+        }
+        String padding = readLine();
+        if (!padding.isBlank()) {
+            throw new IOException("multipart 分隔符格式错误");
+        }
+
+        currentHeaders = readHeaders();
+        currentBody = new PartInputStream();
+        return true;
+    }
+
+    /**
+     * 当前部分的头信息（头名称统一为小写）
+     */
+    Map<String, String> headers() {
+        return currentHeaders;
+    }
+
+    /**
+     * 当前部分 Content-Disposition 中的参数，例如 name、filename
+     */
+    String dispositionParam(String name) {
+        String disposition = currentHeaders.get("content-disposition");
+        if (disposition == null) {
+            return null;
+        }
+        for (String param : splitParams(disposition)) {
+            int eq = param.indexOf('=');
+            if (eq > 0 && param.substring(0, eq).trim().equalsIgnoreCase(name)) {
+                String value = param.substring(eq + 1).trim();
+                if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1).replace("\\\"", "\"");
+                }
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前部分的内容流，读到分隔符时返回 -1
+     */
+    InputStream partBody() {
+        return currentBody;
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i <= MAX_HEADER_COUNT; i++) {
+            String line = readLine();
+            if (line.isEmpty()) {
+                return headers;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        throw new IOException("multipart 头信息过多");
+    }
+
+    /**
+     * 读取一行（以 CRLF 结尾），头信息按 UTF-8 解码以支持中文文件名
+     */
+    private String readLine() throws IOException {
+        int start = head;
+        int length = 0;
+        while (true) {
+            if (head + length + 1 >= tail) {
+                compact();
+                start = head;
+                if (!fill()) {
+                    throw new IOException("multipart 请求体意外结束");
+                }
+                continue;
+            }
+            if (buffer[head + length] == '\r' && buffer[head + length + 1] == '\n') {
+                String line = new String(buffer, start, length, StandardCharsets.UTF_8);
+                head += length + 2;
+                return line;
+            }
+            if (++length > MAX_HEADER_LINE) {
+                throw new IOException("multipart 头信息过长");
+            }
+        }
+    }
+
+    /**
+     * 保证缓冲区中至少有 n 个未读字节，到达流末尾时返回 false
+     */
+    private boolean ensure(int n) throws IOException {
+        while (tail - head < n) {
+            compact();
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void compact() {
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (eof || tail == buffer.length) {
+            return false;
+        }
+        int read = input.read(buffer, tail, buffer.length - tail);
+        if (read == -1) {
+            eof = true;
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        int last = tail - delimiter.length;
+        byte first = delimiter[0];
+        outer:
+        for (int i = head; i <= last; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String[] splitParams(String value) {
+        // 引号内的分号不作为分隔符
+        List<String> params = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' && (i == 0 || value.charAt(i - 1) != '\\')) {
+                quoted = !quoted;
+            }
+            if (c == ';' && !quoted) {
+                params.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        params.add(current.toString());
+        return params.toArray(new String[0]);
+    }
+
+    /**
+     * 单个部分的内容流：始终在缓冲区保留 delimiter.length - 1 个字节，以免分隔符跨越两次读取
+     */
+    private class PartInputStream extends InputStream {
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int index = indexOfDelimiter();
+                if (index == head) {
+                    head += delimiter.length;
+                    ended = true;
+                    return -1;
+                }
+                int available = index != -1 ? index - head : tail - head - (delimiter.length - 1);
+                if (available > 0) {
+                    int n = Math.min(len, available);
+                    System.arraycopy(buffer, head, b, off, n);
+                    head += n;
+                    return n;
+                }
+                compact();
+                if (!fill()) {
+                    throw new IOException("multipart 请求体意外结束，未找到分隔符");
+                }
+            }
+        }
+
+        void skipToEnd() throws IOException {
+            byte[] discard = new byte[8192];
+            while (read(discard, 0, discard.length) != -1) {
+                // 丢弃未读取的内容
+            }
+        }
+    }
+}
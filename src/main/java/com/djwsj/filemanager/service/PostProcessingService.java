@@ -0,0 +1,344 @@
+// src/main/java/com/djwsj/filemanager/service/PostProcessingService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.entity.ProcessingJob;
+import com.djwsj.filemanager.enums.ProcessingStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 上传后处理服务
+ * <p>
+ * 文件写入存储并登记索引后（{@link FileStoredEvent}）只创建一个任务就返回，
+ * 校验和、缩略图等耗时工作由后台线程池按顺序执行各个 {@link FilePostProcessor}。
+ * 任务保存在存储目录下的 .jobs 目录中（每个任务一个 properties 文件），
+ * 服务重启后未完成的任务会重新执行；失败的任务最多执行 file.postprocess.max-attempts 次，
+ * 每次重试前按指数退避等待（file.postprocess.retry-delay 的 1、2、4…… 倍）。
+ */
+@Service
+public class PostProcessingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PostProcessingService.class);
+
+    private static final String JOB_DIR = ".jobs";
+    private static final String JOB_SUFFIX = ".properties";
+    private static final String RESULT_PREFIX = "result.";
+
+    private final FileStorageService fileStorageService;
+    private final List<FilePostProcessor> processors;
+    private final Path jobLocation;
+
+    @Value("${file.postprocess.enabled:true}")
+    private boolean enabled;
+
+    @Value("${file.postprocess.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${file.postprocess.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${file.postprocess.retry-delay:5s}")
+    private Duration retryDelay;
+
+    private final ThreadPoolExecutor executor;
+    // 等待重试的任务到期后再交给 executor
+    private final ScheduledExecutorService retryScheduler;
+
+    // 内存中的任务状态（与 .jobs 目录中的文件一致），以及每个文件最近一次的任务
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> latestJobByFile = new ConcurrentHashMap<>();
+
+    public PostProcessingService(FileStorageService fileStorageService,
+                                 List<FilePostProcessor> processors,
+                                 @Value("${file.postprocess.workers:2}") int workers) throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.processors = processors;
+        this.jobLocation = fileStorageService.getFileStorageLocation().resolve(JOB_DIR);
+        Files.createDirectories(this.jobLocation);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "post-process-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-process-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 启动时恢复任务，未完成的任务重新排队
+     */
+    @PostConstruct
+    public void recoverJobs() {
+        int pending = 0;
+        try (Stream<Path> stream = Files.list(jobLocation)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                String name = path.getFileName().toString();
+                if (!name.endsWith(JOB_SUFFIX)) {
+                    continue;
+                }
+                ProcessingJob job = readJob(name.substring(0, name.length() - JOB_SUFFIX.length()));
+                if (job == null) {
+                    continue;
+                }
+                remember(job);
+                if (job.getStatus() == ProcessingStatus.PENDING || job.getStatus() == ProcessingStatus.RUNNING) {
+                    job.setStatus(ProcessingStatus.PENDING);
+                    if (job.getAttempts() > 0) {
+                        resubmit(job);
+                    } else {
+                        submit(job.getJobId());
+                    }
+                    pending++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("无法恢复后处理任务: {}", e.getMessage());
+        }
+        if (pending > 0) {
+            log.info("恢复未完成的后处理任务: {} 个", pending);
+        }
+    }
+
+    /**
+     * 文件存储完成：持久化任务后交给线程池，上传请求不等待处理结果
+     */
+    @EventListener
+    public void onFileStored(FileStoredEvent event) {
+        if (!enabled || processors.isEmpty()) {
+            return;
+        }
+        ProcessingJob job = new ProcessingJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setFilename(event.getFilename());
+        job.setStatus(ProcessingStatus.PENDING);
+        job.setResults(new LinkedHashMap<>());
+        job.setCreatedTime(LocalDateTime.now());
+        job.setUpdatedTime(job.getCreatedTime());
+
+        try {
+            writeJob(job);
+        } catch (IOException e) {
+            // 任务无法持久化时仍然在内存中执行，只是重启后不会恢复
+            log.warn("无法保存后处理任务: {} - {}", event.getFilename(), e.getMessage());
+        }
+        remember(job);
+        submit(job.getJobId());
+    }
+
+    public ProcessingJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 文件最近一次的后处理任务，没有时返回 null
+     */
+    public ProcessingJob getJobForFile(String fileName) {
+        String jobId = latestJobByFile.get(fileName);
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+
+    /**
+     * 删除超过保留时间的已结束任务
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 60 * 1000L)
+    public void cleanupFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        for (ProcessingJob job : new ArrayList<>(jobs.values())) {
+            boolean finished = job.getStatus() == ProcessingStatus.COMPLETED
+                    || job.getStatus() == ProcessingStatus.FAILED;
+            if (finished && job.getUpdatedTime().isBefore(cutoff)) {
+                jobs.remove(job.getJobId());
+                latestJobByFile.remove(job.getFilename(), job.getJobId());
+                try {
+                    Files.deleteIfExists(jobPath(job.getJobId()));
+                } catch (IOException e) {
+                    log.warn("删除后处理任务失败: {} - {}", job.getJobId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 正在执行的任务保持 RUNNING 状态，等待重试的任务保持 PENDING 状态，下次启动时重新执行
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void submit(String jobId) {
+        executor.execute(() -> run(jobId));
+    }
+
+    /**
+     * 失败的任务延迟后重新执行，第 n 次重试等待 retry-delay × 2^(n-1)
+     */
+    private void resubmit(ProcessingJob job) {
+        long delay = retryDelay.toMillis() << Math.min(Math.max(job.getAttempts() - 1, 0), 10);
+        String jobId = job.getJobId();
+        retryScheduler.schedule(() -> {
+            if (!executor.isShutdown()) {
+                submit(jobId);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(String jobId) {
+        ProcessingJob job = jobs.get(jobId);
+        if (job == null) {
+            return;
+        }
+
+        FileRecord record = fileStorageService.getFileRecord(job.getFilename());
+        Path file = record != null ? fileStorageService.resolveFilePath(job.getFilename()) : null;
+        if (file == null) {
+            // 文件在处理前已被删除
+            job.setError("文件不存在");
+            update(job, ProcessingStatus.FAILED);
+            return;
+        }
+
+        job.setAttempts(job.getAttempts() + 1);
+        update(job, ProcessingStatus.RUNNING);
+
+        Map<String, String> results = new LinkedHashMap<>();
+        try {
+            for (FilePostProcessor processor : processors) {
+                processor.process(record, file, results);
+            }
+        } catch (Exception e) {
+            job.setError(e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (job.getAttempts() < maxAttempts && !executor.isShutdown()) {
+                update(job, ProcessingStatus.PENDING);
+                resubmit(job);
+            } else {
+                log.warn("后处理任务失败: {} - {}", job.getFilename(), job.getError());
+                update(job, ProcessingStatus.FAILED);
+            }
+            return;
+        }
+
+        job.setResults(results);
+        job.setError(null);
+        update(job, ProcessingStatus.COMPLETED);
+    }
+
+    private void update(ProcessingJob job, ProcessingStatus status) {
+        job.setStatus(status);
+        job.setUpdatedTime(LocalDateTime.now());
+        try {
+            writeJob(job);
+        } catch (IOException e) {
+            log.warn("无法保存后处理任务: {} - {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private void remember(ProcessingJob job) {
+        jobs.put(job.getJobId(), job);
+        latestJobByFile.merge(job.getFilename(), job.getJobId(), (current, candidate) -> {
+            ProcessingJob existing = jobs.get(current);
+            return existing == null || !existing.getCreatedTime().isAfter(job.getCreatedTime()) ? candidate : current;
+        });
+    }
+
+    // ==================== 任务文件读写 ====================
+
+    /**
+     * 先写临时文件再重命名，崩溃时不会留下写了一半的任务文件
+     */
+    private void writeJob(ProcessingJob job) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("filename", job.getFilename());
+        props.setProperty("status", job.getStatus().name());
+        props.setProperty("attempts", String.valueOf(job.getAttempts()));
+        if (job.getError() != null) {
+            props.setProperty("error", job.getError());
+        }
+        props.setProperty("createdTime", job.getCreatedTime().toString());
+        props.setProperty("updatedTime", job.getUpdatedTime().toString());
+        if (job.getResults() != null) {
+            job.getResults().forEach((key, value) -> props.setProperty(RESULT_PREFIX + key, value));
+        }
+
+        Path target = jobPath(job.getJobId());
+        Path temp = jobLocation.resolve(job.getJobId() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            props.store(writer, "post-processing job");
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private ProcessingJob readJob(String jobId) {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(jobPath(jobId), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (IOException e) {
+            log.warn("无法读取后处理任务: {} - {}", jobId, e.getMessage());
+            return null;
+        }
+
+        try {
+            ProcessingJob job = new ProcessingJob();
+            job.setJobId(jobId);
+            job.setFilename(props.getProperty("filename"));
+            job.setStatus(ProcessingStatus.valueOf(props.getProperty("status")));
+            job.setAttempts(Integer.parseInt(props.getProperty("attempts", "0")));
+            job.setError(props.getProperty("error"));
+            job.setCreatedTime(LocalDateTime.parse(props.getProperty("createdTime")));
+            job.setUpdatedTime(LocalDateTime.parse(props.getProperty("updatedTime")));
+            Map<String, String> results = new LinkedHashMap<>();
+            for (String key : props.stringPropertyNames()) {
+                if (key.startsWith(RESULT_PREFIX)) {
+                    results.put(key.substring(RESULT_PREFIX.length()), props.getProperty(key));
+                }
+            }
+            job.setResults(results);
+            return job.getFilename() != null ? job : null;
+        } catch (RuntimeException e) {
+            log.warn("后处理任务文件格式错误: {} - {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path jobPath(String jobId) {
+        return jobLocation.resolve(jobId + JOB_SUFFIX);
+    }
+}
@@ -0,0 +1,148 @@
+// src/main/java/com/djwsj/filemanager/service/StorageLayoutMigrator.java
+package com.djwsj.filemanager.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 在线存储布局迁移：把不在当前布局位置上的文件逐个重命名到当前布局下
+ * <p>
+ * 迁移在后台线程中进行，服务照常读写：新文件直接写入新布局，
+ * 查找文件时会回退到旧布局，因此迁移过程中文件始终可以访问。
+ * 同一文件系统内的移动只是一次重命名，不复制数据。中断后重新执行即可继续。
+ * 每个文件移动时持有 {@link StoragePathStrategy#lockFor(String)}，与删除互斥。
+ */
+@Service
+public class StorageLayoutMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageLayoutMigrator.class);
+
+    private final StoragePathStrategy storagePaths;
+    private final FileStorageService fileStorageService;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong moved = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String lastError;
+
+    public StorageLayoutMigrator(StoragePathStrategy storagePaths, FileStorageService fileStorageService) {
+        this.storagePaths = storagePaths;
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * 启动迁移，已有迁移在进行时返回 false
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        scanned.set(0);
+        moved.set(0);
+        failed.set(0);
+        lastError = null;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+
+        Thread worker = new Thread(this::migrate, "storage-layout-migrator");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("layout", storagePaths.getLayoutName());
+        status.put("running", running.get());
+        status.put("scanned", scanned.get());
+        status.put("moved", moved.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt > 0 ? startedAt : null);
+        status.put("finishedAt", finishedAt > 0 ? finishedAt : null);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private void migrate() {
+        log.info("开始迁移存储布局到: {}", storagePaths.getLayoutName());
+        try (Stream<Path> stream = storagePaths.listFiles()) {
+            Iterator<Path> files = stream.iterator();
+            while (files.hasNext()) {
+                Path file = files.next();
+                scanned.incrementAndGet();
+                if (!storagePaths.isInPlace(file)) {
+                    moveToTarget(file);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            lastError = e.getMessage();
+            log.warn("存储布局迁移中止: {}", e.getMessage());
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            running.set(false);
+            log.info("存储布局迁移结束: 扫描 {} 个文件, 移动 {} 个, 失败 {} 个", scanned.get(), moved.get(), failed.get());
+        }
+    }
+
+    private void moveToTarget(Path file) {
+        String fileName = file.getFileName().toString();
+        Path target = storagePaths.target(fileName);
+        ReentrantLock lock = storagePaths.lockFor(fileName);
+        lock.lock();
+        try {
+            if (!Files.isRegularFile(file)) {
+                // 列出目录之后已被删除
+                return;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, target);
+            }
+            fileStorageService.evictFromCache(fileName);
+            moved.incrementAndGet();
+            removeEmptyShardDirs(file.getParent());
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            lastError = fileName + ": " + e;
+            log.warn("迁移文件失败: {} - {}", fileName, e.toString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从分目录布局迁回平铺布局时删除已清空的前缀目录
+     */
+    private void removeEmptyShardDirs(Path dir) {
+        Path root = fileStorageService.getFileStorageLocation();
+        while (dir != null && !dir.equals(root) && dir.startsWith(root)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                // 目录非空（DirectoryNotEmptyException）或无法删除
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+// src/main/java/com/djwsj/filemanager/service/StoragePathStrategy.java
+package com.djwsj.filemanager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 存储目录布局（所有按存储文件名定位文件的地方都通过这里解析路径）
+ * <p>
+ * flat：所有文件直接放在存储目录下（默认，与旧版本一致）。
+ * sharded：按存储文件名的 CRC32 取两级十六进制前缀目录，例如 3f/a2/1700000000000_ab12cd34_a.pdf，
+ * 单个目录中的文件数保持在较小的范围内。
+ * <p>
+ * 定位已有文件时先查当前布局，再查另一种布局，因此切换布局后无需停机，
+ * 可以由 {@link StorageLayoutMigrator} 在后台逐个迁移文件。
+ * 迁移移动文件和删除文件时持有 {@link #lockFor(String)} 返回的锁，删除不会错过正在移动的文件。
+ */
+@Component
+public class StoragePathStrategy {
+
+    private static final Pattern SHARD_DIR = Pattern.compile("[0-9a-f]{2}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final boolean sharded;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public StoragePathStrategy(@Value("${file.upload-dir:uploads}") String uploadDir,
+                               @Value("${file.storage.layout:flat}") String layout) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if ("sharded".equalsIgnoreCase(layout)) {
+            this.sharded = true;
+        } else if ("flat".equalsIgnoreCase(layout)) {
+            this.sharded = false;
+        } else {
+            throw new IllegalArgumentException("不支持的存储布局: " + layout + "（可选 flat、sharded）");
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isSharded() {
+        return sharded;
+    }
+
+    public String getLayoutName() {
+        return sharded ? "sharded" : "flat";
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 目录名是否是前缀目录（两级都是两位十六进制）
+     */
+    public boolean isShardDirName(String name) {
+        return SHARD_DIR.matcher(name).matches();
+    }
+
+    /**
+     * 两级前缀目录（不论当前布局），先列出第一级再列出其下的第二级，流需要关闭
+     */
+    public Stream<Path> shardDirectories() {
+        return listShardDirs(root).flatMap(dir -> Stream.concat(Stream.of(dir), listShardDirs(dir)));
+    }
+
+    /**
+     * 存储文件名只能是单层文件名，且不能与以点开头的内部目录（.index、.blobs 等）冲突
+     */
+    public boolean isValidName(String fileName) {
+        return fileName != null && !fileName.isEmpty() && !fileName.startsWith(".")
+                && fileName.indexOf('/') < 0 && fileName.indexOf('\\') < 0 && fileName.indexOf('\0') < 0;
+    }
+
+    /**
+     * 新文件在当前布局下应写入的位置（父目录可能尚不存在）
+     */
+    public Path target(String fileName) {
+        return sharded ? shardedPath(fileName) : flatPath(fileName);
+    }
+
+    /**
+     * 已有文件的位置：优先当前布局，迁移未完成时回退到另一种布局；都不存在时返回当前布局下的位置
+     */
+    public Path locate(String fileName) {
+        Path primary = target(fileName);
+        if (Files.exists(primary)) {
+            return primary;
+        }
+        Path secondary = sharded ? flatPath(fileName) : shardedPath(fileName);
+        return Files.exists(secondary) ? secondary : primary;
+    }
+
+    public ReentrantLock lockFor(String fileName) {
+        return locks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * 文件当前是否已位于当前布局下的位置
+     */
+    public boolean isInPlace(Path file) {
+        return file.equals(target(file.getFileName().toString()));
+    }
+
+    /**
+     * 列出两种布局下的所有存储文件（不包括以点开头的内部目录），流需要关闭
+     */
+    public Stream<Path> listFiles() throws IOException {
+        Stream<Path> flat = Files.list(root)
+                .filter(path -> Files.isRegularFile(path) && isValidName(path.getFileName().toString()));
+        Stream<Path> shards = listShardDirs(root)
+                .flatMap(StoragePathStrategy::listShardDirs)
+                .flatMap(StoragePathStrategy::listEntries)
+                .filter(Files::isRegularFile);
+        return Stream.concat(flat, shards);
+    }
+
+    private static Stream<Path> listShardDirs(Path dir) {
+        return listEntries(dir).filter(path -> SHARD_DIR.matcher(path.getFileName().toString()).matches()
+                && Files.isDirectory(path));
+    }
+
+    private static Stream<Path> listEntries(Path dir) {
+        try {
+            return Files.list(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path flatPath(String fileName) {
+        return root.resolve(fileName);
+    }
+
+    private Path shardedPath(String fileName) {
+        CRC32 crc = new CRC32();
+        crc.update(fileName.getBytes(StandardCharsets.UTF_8));
+        String hex = String.format("%08x", crc.getValue());
+        return root.resolve(hex.substring(0, 2)).resolve(hex.substring(2, 4)).resolve(fileName);
+    }
+}
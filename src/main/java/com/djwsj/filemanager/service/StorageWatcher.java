@@ -0,0 +1,276 @@
+// src/main/java/com/djwsj/filemanager/service/StorageWatcher.java
+package com.djwsj.filemanager.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 监视存储目录，把运维人员在应用之外放入、替换、删除的文件逐个同步到元数据索引和文件信息缓存
+ * <p>
+ * 监视存储目录本身和两级前缀目录（新建的前缀目录自动加入监视）。同一文件的事件在 file.watch.settle-ms
+ * 内没有新事件后才处理，文件正在写入时不会读到一半的内容；预热完成前只收集事件。
+ * 事件队列溢出或目录无法监视时不再逐个同步，而是标记需要核对，
+ * 由定时任务按 file.watch.reconcile-interval-ms 的间隔最多执行一次全目录核对。
+ */
+@Service
+public class StorageWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageWatcher.class);
+
+    private final FileStorageService fileStorageService;
+    private final IndexWarmupService warmupService;
+    private final StoragePathStrategy storagePaths;
+    private final FileMetrics fileMetrics;
+    private final boolean enabled;
+    private final long settleNanos;
+    private final int parallelism;
+
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+    // 等待处理的文件 -> 最后一次事件的时间（只由监视线程访问）
+    private final Map<Path, Long> pending = new HashMap<>();
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+    private volatile WatchService watchService;
+
+    public StorageWatcher(FileStorageService fileStorageService,
+                          IndexWarmupService warmupService,
+                          StoragePathStrategy storagePaths,
+                          FileMetrics fileMetrics,
+                          @Value("${file.watch.enabled:true}") boolean enabled,
+                          @Value("${file.watch.settle-ms:500}") long settleMillis,
+                          @Value("${file.warmup.parallelism:8}") int parallelism) {
+        this.fileStorageService = fileStorageService;
+        this.warmupService = warmupService;
+        this.storagePaths = storagePaths;
+        this.fileMetrics = fileMetrics;
+        this.enabled = enabled;
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, settleMillis));
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * 与启动预热同时开始监视，预热期间的修改不会遗漏
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Path root = storagePaths.getRoot();
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            register(root);
+            try (Stream<Path> dirs = storagePaths.shardDirectories()) {
+                dirs.forEach(this::register);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("无法监视存储目录，外部修改需要重启或重建索引后才能看到: {}", e.toString());
+            close();
+            return;
+        }
+
+        Thread worker = new Thread(this::run, "storage-watcher");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("开始监视存储目录: {} 个目录", watchedDirs.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+                // 应用关闭中
+            }
+        }
+    }
+
+    private void run() {
+        long pollMillis = Math.max(50, TimeUnit.NANOSECONDS.toMillis(settleNanos));
+        try {
+            while (true) {
+                WatchService service = watchService;
+                if (service == null) {
+                    return;
+                }
+                WatchKey key = service.poll(pollMillis, TimeUnit.MILLISECONDS);
+                while (key != null) {
+                    collect(key);
+                    key = service.poll();
+                }
+                if (warmupService.isWarm()) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 应用关闭
+        }
+    }
+
+    private void collect(WatchKey key) {
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                fileMetrics.recordWatchEvent("overflow");
+                requestReconcile("监视事件队列溢出");
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                watchNewDirectory(path);
+            } else if (storagePaths.isValidName(path.getFileName().toString())) {
+                pending.put(path, System.nanoTime());
+            }
+        }
+        if (!key.reset()) {
+            // 目录已被删除
+            watchedDirs.remove(key);
+        }
+    }
+
+    /**
+     * 新建的前缀目录加入监视；注册前已经写入的文件和子目录也一并处理
+     */
+    private void watchNewDirectory(Path dir) {
+        Path relative = storagePaths.getRoot().relativize(dir);
+        int depth = relative.getNameCount();
+        if (depth > 2 || !storagePaths.isShardDirName(dir.getFileName().toString())
+                || (depth == 2 && !storagePaths.isShardDirName(relative.getName(0).toString()))) {
+            return;
+        }
+        register(dir);
+        try (Stream<Path> entries = Files.list(dir)) {
+            entries.forEach(entry -> {
+                if (Files.isDirectory(entry)) {
+                    watchNewDirectory(entry);
+                } else if (storagePaths.isValidName(entry.getFileName().toString())) {
+                    pending.put(entry, System.nanoTime());
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            requestReconcile("无法列出新目录 " + dir);
+        }
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(key, dir);
+        } catch (IOException e) {
+            // 例如超过系统的 inotify 监视数量上限
+            requestReconcile("无法监视目录 " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 处理已经稳定（settle-ms 内没有新事件）的文件
+     */
+    private void flush() {
+        long cutoff = System.nanoTime() - settleNanos;
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (entry.getValue() - cutoff > 0) {
+                continue;
+            }
+            iterator.remove();
+            sync(entry.getKey());
+        }
+    }
+
+    /**
+     * 同步单个文件，返回执行的操作（没有变化或失败时为 null）
+     */
+    private String sync(Path path) {
+        try {
+            String action = fileStorageService.syncStoredFile(path);
+            if (action != null) {
+                fileMetrics.recordWatchEvent(action);
+                log.debug("同步存储目录的外部修改: {} {}", action, path.getFileName());
+            }
+            return action;
+        } catch (IOException | RuntimeException e) {
+            log.warn("无法同步文件: {} - {}", path.getFileName(), e.toString());
+            return null;
+        }
+    }
+
+    private void requestReconcile(String reason) {
+        if (reconcileRequested.compareAndSet(false, true)) {
+            log.warn("{}，将在下次定时核对时扫描存储目录", reason);
+        }
+    }
+
+    /**
+     * 事件丢失后的全目录核对，由定时任务限制频率；预热完成前不执行（预热本身就会核对）
+     * <p>
+     * 不重建索引，而是把目录中的每个文件和索引中有、目录中没有的文件逐个同步（与处理单个事件相同），
+     * 每个文件的增删都通过索引的 putIfAbsent/remove 完成，同时进行的上传和删除不会被覆盖
+     */
+    @Scheduled(fixedDelayString = "${file.watch.reconcile-interval-ms:30000}")
+    public void reconcileIfRequested() {
+        if (!warmupService.isWarm() || !reconcileRequested.getAndSet(false)) {
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Path> files = fileStorageService.listStoredFiles();
+            Set<String> listed = files.stream()
+                    .map(path -> path.getFileName().toString())
+                    .collect(Collectors.toSet());
+            List<Path> candidates = new ArrayList<>(files);
+            for (String fileName : fileStorageService.indexedStoredFileNames()) {
+                if (!listed.contains(fileName)) {
+                    candidates.add(storagePaths.locate(fileName));
+                }
+            }
+            Map<String, Long> actions = pool.submit(() -> candidates.parallelStream()
+                    .map(this::sync)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.groupingBy(action -> action, Collectors.counting()))).join();
+            log.info("存储目录核对完成: {} 个文件, 新增 {}, 更新 {}, 删除 {}", files.size(),
+                    actions.getOrDefault("created", 0L), actions.getOrDefault("modified", 0L),
+                    actions.getOrDefault("deleted", 0L));
+        } catch (IOException | RuntimeException e) {
+            reconcileRequested.set(true);
+            log.warn("存储目录核对失败: {}", e.toString());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// src/main/java/com/djwsj/filemanager/service/StreamingUploadService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式 multipart 上传服务
+ * <p>
+ * 直接解析请求体，文件内容边接收边写入存储目录，不经过 servlet 容器的 multipart 临时文件。
+ * 文件之前出现的 uploadUser、category 表单字段会作用于其后的文件。
+ */
+@Service
+public class StreamingUploadService {
+
+    private static final int MAX_FIELD_SIZE = 1024;
+
+    private final FileStorageService fileStorageService;
+
+    public StreamingUploadService(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    /**
+     * 解析 multipart 请求体并存储其中的所有文件
+     *
+     * @param failedFiles 收集存储失败的文件（filename、reason）
+     * @return 存储成功的文件
+     */
+    public List<FileInfo> storeMultipart(InputStream body, String contentType, FileCategory category,
+                                         String uploadUser, List<Map<String, Object>> failedFiles) throws IOException {
+        String boundary = MultipartStreamReader.extractBoundary(contentType);
+        if (boundary == null) {
+            throw new IllegalArgumentException("请求不是有效的 multipart/form-data");
+        }
+
+        MultipartStreamReader reader = new MultipartStreamReader(body, boundary);
+        List<FileInfo> storedFiles = new ArrayList<>();
+
+        while (reader.nextPart()) {
+            String fieldName = reader.dispositionParam("name");
+            String filename = reader.dispositionParam("filename");
+
+            if (filename == null) {
+                // 普通表单字段
+                String value = readField(reader.partBody());
+                if ("uploadUser".equals(fieldName) && StringUtils.hasText(value)) {
+                    uploadUser = value;
+                } else if ("category".equals(fieldName) && StringUtils.hasText(value)) {
+                    try {
+                        category = FileCategory.valueOf(value.trim().toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        // 使用自动分类
+                    }
+                }
+                continue;
+            }
+
+            if (filename.isEmpty()) {
+                // 浏览器在未选择文件时会提交空文件名的部分
+                continue;
+            }
+
+            try {
+                FileInfo fileInfo = fileStorageService.storeFile(reader.partBody(), filename, category, uploadUser);
+                storedFiles.add(fileInfo);
+            } catch (RuntimeException e) {
+                Map<String, Object> failedFile = new HashMap<>();
+                failedFile.put("filename", filename);
+                failedFile.put("reason", e.getMessage());
+                failedFiles.add(failedFile);
+            }
+        }
+
+        return storedFiles;
+    }
+
+    private String readField(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            if (output.size() + read > MAX_FIELD_SIZE) {
+                throw new IllegalArgumentException("表单字段过长");
+            }
+            output.write(buffer, 0, read);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
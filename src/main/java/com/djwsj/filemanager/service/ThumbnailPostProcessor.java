@@ -0,0 +1,48 @@
+// src/main/java/com/djwsj/filemanager/service/ThumbnailPostProcessor.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 为图片预先生成常用尺寸（file.thumbnail.pregenerate-sizes）的缩略图，浏览列表时不必等待生成；
+ * 其他尺寸仍在第一次请求时生成
+ */
+@Component
+@Order(300)
+public class ThumbnailPostProcessor implements FilePostProcessor {
+
+    private final ThumbnailService thumbnailService;
+    private final int[] sizes;
+
+    public ThumbnailPostProcessor(ThumbnailService thumbnailService,
+                                  @Value("${file.thumbnail.pregenerate-sizes:256}") int[] sizes) {
+        this.thumbnailService = thumbnailService;
+        this.sizes = sizes;
+    }
+
+    @Override
+    public void process(FileRecord record, Path file, Map<String, String> results) throws IOException {
+        if (!thumbnailService.supports(record)) {
+            return;
+        }
+        StringJoiner generated = new StringJoiner(",");
+        for (int size : sizes) {
+            int normalized = thumbnailService.normalizeSize(size);
+            // 已缓存时直接命中，重试时不会重复生成
+            if (thumbnailService.getThumbnail(record.getFilename(), normalized) != null) {
+                generated.add(String.valueOf(normalized));
+            }
+        }
+        if (generated.length() > 0) {
+            results.put("thumbnails", generated.toString());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+// src/main/java/com/djwsj/filemanager/service/ThumbnailService.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 缩略图服务
+ * <p>
+ * 图片文件的缩略图在第一次请求时生成（按边长缩放，保持宽高比），保存在存储目录下的 .thumbs 目录中，
+ * 缓存键是文件名、尺寸和原文件大小、修改时间的哈希，原文件被替换后旧缩略图不再命中。
+ * 缓存总大小超过 file.thumbnail.cache-max-bytes 时按最近访问时间淘汰。
+ * <p>
+ * 只支持 JDK ImageIO 能解码的格式（jpg、png、gif、bmp）；视频首帧需要原生解码器，纯 Java 环境下不提供。
+ */
+@Service
+public class ThumbnailService {
+
+    private static final String THUMB_DIR = ".thumbs";
+
+    private final FileStorageService fileStorageService;
+    private final DiskCache cache;
+    private final int[] sizes;
+
+    @Value("${file.thumbnail.enabled:true}")
+    private boolean enabled;
+
+    public ThumbnailService(FileStorageService fileStorageService,
+                            @Value("${file.thumbnail.sizes:64,256,1024}") int[] sizes,
+                            @Value("${file.thumbnail.cache-max-bytes:268435456}") long cacheMaxBytes) throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().toArray();
+        if (this.sizes.length == 0) {
+            throw new IllegalArgumentException("file.thumbnail.sizes 至少需要一个正整数尺寸");
+        }
+        this.cache = new DiskCache(fileStorageService.getFileStorageLocation().resolve(THUMB_DIR), cacheMaxBytes);
+    }
+
+    /**
+     * 文件是否可以生成缩略图（按分类判断，不检查文件内容）
+     */
+    public boolean supports(FileRecord record) {
+        return enabled && record != null && record.getCategory() == FileCategory.IMAGE;
+    }
+
+    /**
+     * 把请求的尺寸对齐到配置的尺寸（不小于请求尺寸的最小值），避免任意尺寸撑满缓存
+     */
+    public int normalizeSize(int requested) {
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    /**
+     * 获取缩略图文件，需要时生成
+     *
+     * @return 缩略图路径；文件不存在、不是图片或无法解码时返回 null
+     */
+    public Path getThumbnail(String fileName, int size) throws IOException {
+        FileRecord record = fileStorageService.getFileRecord(fileName);
+        if (!supports(record)) {
+            return null;
+        }
+        Path source = fileStorageService.resolveFilePath(fileName);
+        if (source == null) {
+            return null;
+        }
+
+        String key = cacheKey(fileName, size, Files.size(source), Files.getLastModifiedTime(source).toMillis());
+        for (String format : new String[]{"jpg", "png"}) {
+            Path cached = cache.get(key + "." + format);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        BufferedImage image = readScaled(source, size);
+        if (image == null) {
+            return null;
+        }
+        String format = image.getColorModel().hasAlpha() ? "png" : "jpg";
+        return cache.put(key + "." + format, target -> {
+            if (!ImageIO.write(image, format, target.toFile())) {
+                throw new IOException("不支持的缩略图格式: " + format);
+            }
+        });
+    }
+
+    /**
+     * 缓存键：文件名、尺寸、原文件大小和修改时间的 SHA-1（固定 40 个十六进制字符）。
+     * 原始文件名可能很长或包含非 ASCII 字符，不能直接用作缓存文件名和 ETag
+     */
+    static String cacheKey(String fileName, int size, long sourceSize, long sourceModified) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String source = fileName + "|" + size + "|" + sourceSize + "|" + sourceModified;
+        return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public Map<String, Object> getCacheInfo() {
+        return cache.getInfo();
+    }
+
+    // ==================== 图片解码与缩放 ====================
+
+    /**
+     * 解码并缩放到最长边不超过 size。大图按比例跳行跳列读取（subsampling），不必把整张原图解码到内存
+     */
+    private static BufferedImage readScaled(Path source, int size) throws IOException {
+        BufferedImage decoded;
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                // 保留两倍目标尺寸的像素，再做一次平滑缩放
+                int subsampling = Math.max(1, longest / (size * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                decoded = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        int width = decoded.getWidth();
+        int height = decoded.getHeight();
+        double scale = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        boolean alpha = decoded.getColorModel().hasAlpha();
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(decoded, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+}
@@ -0,0 +1,117 @@
+// src/main/java/com/djwsj/filemanager/util/ExtensionTable.java
+package com.djwsj.filemanager.util;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 不可变的扩展名查找表
+ * <p>
+ * 创建时把扩展名转为小写存入开放寻址的数组（容量不小于条目数的两倍），查找时逐字符按小写比较，
+ * 可以直接在文件名中按位置查找，不需要 substring、toLowerCase 等创建新字符串的操作。
+ * 命中时可以返回表中保存的小写扩展名（同一扩展名始终是同一个 String 实例）。
+ *
+ * @param <V> 扩展名对应的值
+ */
+public final class ExtensionTable<V> {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    private ExtensionTable(Map<String, V> entries) {
+        int capacity = Integer.highestOneBit(Math.max(4, entries.size() * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        for (Map.Entry<String, V> entry : entries.entrySet()) {
+            String key = entry.getKey().toLowerCase(Locale.ROOT);
+            int slot = slot(key, 0, key.length());
+            if (keys[slot] == null) {
+                keys[slot] = key;
+                values[slot] = entry.getValue();
+            }
+        }
+    }
+
+    /**
+     * 按给定的扩展名与值创建查找表，扩展名忽略大小写，重复的扩展名保留第一个
+     */
+    public static <V> ExtensionTable<V> of(Map<String, V> entries) {
+        return new ExtensionTable<>(entries);
+    }
+
+    public V get(CharSequence extension) {
+        return extension != null ? get(extension, 0, extension.length()) : null;
+    }
+
+    /**
+     * 查找 text 中 [from, to) 范围的扩展名，不存在时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence text, int from, int to) {
+        int slot = slot(text, from, to);
+        return keys[slot] != null ? (V) values[slot] : null;
+    }
+
+    /**
+     * 返回表中保存的小写扩展名，不存在时返回 null
+     */
+    public String canonical(CharSequence text, int from, int to) {
+        return keys[slot(text, from, to)];
+    }
+
+    /**
+     * 文件名的小写扩展名，没有扩展名时返回 null。表中已有的扩展名返回共享的字符串实例，不创建新字符串
+     */
+    public String extensionOf(String fileName) {
+        int start = extensionStart(fileName);
+        if (start < 0) {
+            return null;
+        }
+        String canonical = canonical(fileName, start, fileName.length());
+        return canonical != null ? canonical : fileName.substring(start).toLowerCase(Locale.ROOT);
+    }
+
+    public boolean contains(CharSequence extension) {
+        return extension != null && keys[slot(extension, 0, extension.length())] != null;
+    }
+
+    /**
+     * 文件名中扩展名的起始位置（最后一个点之后）；没有扩展名、点在开头或结尾时返回 -1
+     */
+    public static int extensionStart(String fileName) {
+        if (fileName == null) {
+            return -1;
+        }
+        int lastDotIndex = fileName.lastIndexOf('.');
+        return lastDotIndex > 0 && lastDotIndex < fileName.length() - 1 ? lastDotIndex + 1 : -1;
+    }
+
+    /**
+     * 线性探测：返回 key 所在的槽位，或探测到的第一个空槽位
+     */
+    private int slot(CharSequence text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && !matches(keys[slot], text, from, to)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static boolean matches(String key, CharSequence text, int from, int to) {
+        if (key.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != Character.toLowerCase(text.charAt(from + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,141 @@
+// src/test/java/com/djwsj/filemanager/service/ChunkedUploadServiceTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.ChunkedUpload;
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分片重传：写了一半失败的分片保持未接收，完成请求被拒绝，重新上传后才能完成
+ */
+class ChunkedUploadServiceTest {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final int TOTAL_SIZE = 2000;
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private ChunkedUploadService service;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new TestStorage(uploadDir);
+        service = new ChunkedUploadService(storage.fileStorageService);
+        ReflectionTestUtils.setField(service, "defaultChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(service, "minChunkSize", 16);
+        ReflectionTestUtils.setField(service, "maxChunkSize", 1 << 20);
+        ReflectionTestUtils.setField(service, "sessionTtlHours", 48L);
+
+        content = new byte[TOTAL_SIZE];
+        new Random(42).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.closeSessions();
+        storage.close();
+    }
+
+    @Test
+    void failedRetryOfReceivedChunkLeavesItMissing() throws IOException {
+        String uploadId = init();
+        service.writeChunk(uploadId, 0, chunk(0));
+        service.writeChunk(uploadId, 1, chunk(1));
+        assertThat(service.getStatus(uploadId).getMissingChunks()).isEmpty();
+
+        // 重传已接收的分片，连接在中途断开：前半部分已覆盖写入
+        assertThatThrownBy(() -> service.writeChunk(uploadId, 0, failingAfter(chunk(0), CHUNK_SIZE / 2)))
+                .isInstanceOf(RuntimeException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(service.getStatus(uploadId).getMissingChunks()).containsExactly(0);
+        assertThatThrownBy(() -> service.completeUpload(uploadId))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        service.writeChunk(uploadId, 0, chunk(0));
+        assertThat(service.getStatus(uploadId).getMissingChunks()).isEmpty();
+        assertStored(service.completeUpload(uploadId));
+    }
+
+    @Test
+    void shortRetryOfReceivedChunkLeavesItMissing() throws IOException {
+        String uploadId = init();
+        service.writeChunk(uploadId, 0, chunk(0));
+        service.writeChunk(uploadId, 1, chunk(1));
+
+        byte[] tail = Arrays.copyOfRange(content, CHUNK_SIZE, CHUNK_SIZE + 100);
+        assertThatThrownBy(() -> service.writeChunk(uploadId, 1, new ByteArrayInputStream(tail)))
+                .isInstanceOf(IllegalArgumentException.class);
+        ChunkedUpload status = service.getStatus(uploadId);
+        assertThat(status.getMissingChunks()).containsExactly(1);
+        assertThat(status.getReceivedChunks()).isEqualTo(1);
+        assertThatThrownBy(() -> service.completeUpload(uploadId))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        service.writeChunk(uploadId, 1, chunk(1));
+        assertStored(service.completeUpload(uploadId));
+    }
+
+    private String init() {
+        ChunkedUpload upload = service.initUpload("data.bin", TOTAL_SIZE, CHUNK_SIZE, FileCategory.OTHER, "tester");
+        assertThat(upload.getTotalChunks()).isEqualTo(2);
+        return upload.getUploadId();
+    }
+
+    private InputStream chunk(int index) {
+        int from = index * CHUNK_SIZE;
+        return new ByteArrayInputStream(Arrays.copyOfRange(content, from, Math.min(from + CHUNK_SIZE, TOTAL_SIZE)));
+    }
+
+    private void assertStored(FileInfo info) throws IOException {
+        assertThat(info.getSize()).isEqualTo(TOTAL_SIZE);
+        Path stored = storage.fileStorageService.resolveFilePath(info.getFilename());
+        assertThat(Files.readAllBytes(stored)).isEqualTo(content);
+    }
+
+    /**
+     * 读取 limit 个字节后抛出 IOException 的输入流（模拟连接中断）
+     */
+    private static InputStream failingAfter(InputStream input, int limit) {
+        return new InputStream() {
+            private int read;
+
+            @Override
+            public int read() throws IOException {
+                if (read >= limit) {
+                    throw new IOException("connection reset");
+                }
+                read++;
+                return input.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (read >= limit) {
+                    throw new IOException("connection reset");
+                }
+                int count = input.read(buffer, offset, Math.min(length, limit - read));
+                read += Math.max(count, 0);
+                return count;
+            }
+        };
+    }
+}
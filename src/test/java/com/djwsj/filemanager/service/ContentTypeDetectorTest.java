@@ -0,0 +1,113 @@
+// src/test/java/com/djwsj/filemanager/service/ContentTypeDetectorTest.java
+package com.djwsj.filemanager.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 按特征字节识别类型：强特征优先于扩展名，弱特征需要扩展名一致，容器格式按扩展名细分
+ */
+class ContentTypeDetectorTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+    private static final byte[] ZIP = {'P', 'K', 3, 4, 20, 0, 0, 0};
+    private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A,
+            (byte) 0xE1, 0, 0};
+
+    private final ContentTypeDetector detector = new ContentTypeDetector(4096, 2);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void strongSignatureWinsOverExtension() throws IOException {
+        assertThat(detect(PNG, "image.png")).isEqualTo("image/png");
+        assertThat(detect(PNG, "upload.bin")).isEqualTo("image/png");
+        assertThat(detect(PNG, "no-extension")).isEqualTo("image/png");
+        assertThat(detect(ascii("%PDF-1.7\n"), "report.pdf")).isEqualTo("application/pdf");
+    }
+
+    @Test
+    void spoofedExtensionIsNotTrusted() throws IOException {
+        // 改名为 .jpg 的 PDF 以内容为准
+        assertThat(detect(ascii("%PDF-1.4\n"), "photo.jpg")).isEqualTo("application/pdf");
+        // 声称是图片、实际是 HTML：没有图片特征字节，不采用扩展名，也不会得到 text/html
+        assertThat(detect(ascii("<html><script>alert(1)</script></html>"), "photo.jpg")).isEqualTo("text/plain");
+        // 声称是 PDF 的 zip 包
+        assertThat(detect(ZIP, "invoice.pdf")).isEqualTo("application/zip");
+    }
+
+    @Test
+    void weakSignatureNeedsMatchingExtension() throws IOException {
+        // 以 BM / MZ 开头的普通文本
+        assertThat(detect(ascii("BMW parts list"), "notes.txt")).isEqualTo("text/plain");
+        assertThat(detect(ascii("MZ notes"), "notes")).isEqualTo("text/plain");
+        assertThat(detect(withNul("BM"), "image.bmp")).isEqualTo("image/bmp");
+        assertThat(detect(withNul("MZ"), "setup.exe")).isEqualTo("application/vnd.microsoft.portable-executable");
+        assertThat(detect(withNul("MZ"), "data.bin")).isEqualTo(ContentTypeDetector.GENERIC_TYPE);
+        // 两个字节的 gzip 特征同理
+        assertThat(detect(new byte[]{0x1F, (byte) 0x8B, 8, 0}, "archive.gz")).isEqualTo("application/gzip");
+        assertThat(detect(new byte[]{0x1F, (byte) 0x8B, 8, 0}, "blob.dat")).isEqualTo(ContentTypeDetector.GENERIC_TYPE);
+    }
+
+    @Test
+    void containerFormatsAreRefinedByExtension() throws IOException {
+        assertThat(detect(ZIP, "archive.zip")).isEqualTo("application/zip");
+        assertThat(detect(ZIP, "Letter.DOCX"))
+                .isEqualTo("application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        assertThat(detect(ZIP, "app.jar")).isEqualTo("application/java-archive");
+        // 未知扩展名或没有扩展名时保留容器类型
+        assertThat(detect(ZIP, "data.bin")).isEqualTo("application/zip");
+        assertThat(detect(ZIP, "archive")).isEqualTo("application/zip");
+        assertThat(detect(OLE, "budget.xls")).isEqualTo("application/vnd.ms-excel");
+        assertThat(detect(OLE, "legacy.doc")).isEqualTo("application/msword");
+        // 细分只在同一容器内进行
+        assertThat(detect(OLE, "Letter.docx")).isEqualTo("application/x-ole-storage");
+    }
+
+    @Test
+    void tarMarkerAtOffset() throws IOException {
+        byte[] tar = new byte[512];
+        System.arraycopy(ascii("ustar"), 0, tar, 257, 5);
+        assertThat(detect(tar, "backup.tar")).isEqualTo("application/x-tar");
+        assertThat(detect(tar, "backup")).isEqualTo("application/x-tar");
+    }
+
+    @Test
+    void textFormatsUseExtension() throws IOException {
+        assertThat(detect(ascii("{\"a\": 1}"), "config.json")).isEqualTo("application/json");
+        assertThat(detect(ascii("a,b\n1,2\n"), "table.CSV")).isEqualTo("text/csv");
+        assertThat(detect(ascii("plain"), "unknown.xyz")).isEqualTo("text/plain");
+        assertThat(detect(withNul("xx"), "config.json")).isEqualTo(ContentTypeDetector.GENERIC_TYPE);
+        assertThat(detect(new byte[0], "empty.bin")).isEqualTo(ContentTypeDetector.GENERIC_TYPE);
+    }
+
+    @Test
+    void fileAndStreamDetectionAgree() throws IOException {
+        Path file = Files.write(dir.resolve("stored-name"), PNG);
+        assertThat(detector.detect(file, "photo.jpg")).isEqualTo("image/png");
+        assertThat(detector.typeForName("photo.JPG")).isEqualTo("image/jpeg");
+        assertThat(detector.typeForName("README")).isNull();
+    }
+
+    private String detect(byte[] content, String fileName) throws IOException {
+        return detector.detect(new ByteArrayInputStream(content), fileName);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] withNul(String prefix) {
+        return Arrays.copyOf(ascii(prefix), prefix.length() + 16);
+    }
+}
@@ -0,0 +1,86 @@
+// src/test/java/com/djwsj/filemanager/service/DownloadCompressionServiceTest.java
+package com.djwsj.filemanager.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 压缩缓存在后台生成，触发生成的请求不等待；打开的缓存文件被淘汰后仍能读完
+ */
+class DownloadCompressionServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private DownloadCompressionService compression;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new TestStorage(uploadDir);
+        compression = new DownloadCompressionService(storage.fileStorageService, new String[0], 1 << 20);
+        ReflectionTestUtils.setField(compression, "cacheAfterHits", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        compression.shutdown();
+        storage.close();
+    }
+
+    @Test
+    void variantIsGeneratedInBackgroundAfterThreshold() throws Exception {
+        byte[] content = "compressible text ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        Path source = Files.write(uploadDir.resolve("notes.txt"), content);
+        long lastModified = Files.getLastModifiedTime(source).toMillis();
+
+        assertThat(compression.openCachedVariant("notes.txt", source, lastModified)).isNull();
+        // 达到阈值的请求仍然边读边压缩，缓存在后台生成
+        assertThat(compression.openCachedVariant("notes.txt", source, lastModified)).isNull();
+
+        FileChannel cached = null;
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cached == null && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            cached = compression.openCachedVariant("notes.txt", source, lastModified);
+        }
+        assertThat(cached).isNotNull();
+        try (InputStream input = new GZIPInputStream(Channels.newInputStream(cached))) {
+            assertThat(input.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(compression.getCacheInfo()).containsEntry("entries", 1);
+    }
+
+    @Test
+    void openedEntrySurvivesEviction() throws IOException {
+        DiskCache cache = new DiskCache(uploadDir.resolve(".cache"), 150);
+        cache.put("a", target -> Files.write(target, new byte[100]));
+
+        try (FileChannel channel = cache.open("a")) {
+            assertThat(channel).isNotNull();
+            // 写入 b 后超过上限，a 被淘汰并删除
+            cache.put("b", target -> Files.write(target, new byte[100]));
+            assertThat(Files.exists(uploadDir.resolve(".cache").resolve("a"))).isFalse();
+            assertThat(cache.open("a")).isNull();
+
+            ByteBuffer buffer = ByteBuffer.allocate(200);
+            assertThat(channel.read(buffer, 0)).isEqualTo(100);
+        }
+    }
+}
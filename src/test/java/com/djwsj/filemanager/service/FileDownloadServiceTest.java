@@ -0,0 +1,171 @@
+// src/test/java/com/djwsj/filemanager/service/FileDownloadServiceTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 下载的 Range / If-Range 处理：单段、多段、无法满足的范围，语法无效的 Range 按完整下载处理
+ */
+class FileDownloadServiceTest {
+
+    private static final int LENGTH = 2000;
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private DownloadCompressionService compression;
+    private FileDownloadService downloads;
+    private byte[] content;
+    private String fileName;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new TestStorage(uploadDir);
+        compression = new DownloadCompressionService(storage.fileStorageService, new String[0], 1 << 20);
+        downloads = new FileDownloadService(storage.fileStorageService, compression,
+                new FileMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(downloads, "sendfileThreshold", -1L);
+
+        content = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        FileInfo info = storage.fileStorageService.storeFile(new ByteArrayInputStream(content), "letters.txt",
+                null, "tester");
+        fileName = info.getFilename();
+    }
+
+    @AfterEach
+    void tearDown() {
+        compression.shutdown();
+        storage.close();
+    }
+
+    @Test
+    void withoutRangeSendsFullBody() throws IOException {
+        MockHttpServletResponse response = download(request());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentLengthLong()).isEqualTo(LENGTH);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void singleRanges() throws IOException {
+        assertPartial(download(ranged("bytes=0-99")), 0, 99);
+        assertPartial(download(ranged("bytes=1990-")), 1990, 1999);
+        assertPartial(download(ranged("bytes=-10")), 1990, 1999);
+        // 结束位置超出文件长度时截到文件末尾
+        assertPartial(download(ranged("bytes=1500-5000")), 1500, 1999);
+    }
+
+    @Test
+    void multipleRangesUseMultipartBody() throws IOException {
+        MockHttpServletResponse response = download(ranged("bytes=0-1,10-11"));
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String body = response.getContentAsString(StandardCharsets.US_ASCII);
+        assertThat(body).contains("Content-Range: bytes 0-1/" + LENGTH + "\r\n\r\nab")
+                .contains("Content-Range: bytes 10-11/" + LENGTH + "\r\n\r\nkl");
+        assertThat(response.getContentLengthLong()).isEqualTo(response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void unsatisfiableRangeIsRejected() throws IOException {
+        MockHttpServletResponse response = download(ranged("bytes=5000-6000"));
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + LENGTH);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void invalidRangeIsIgnored() throws IOException {
+        // RFC 9110 §14.2：语法无效的 Range 忽略，返回完整内容
+        for (String range : new String[]{"bytes=abc", "bytes=5-2", "items=0-1", "bytes="}) {
+            MockHttpServletResponse response = download(ranged(range));
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getContentAsByteArray()).as(range).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void ifRangeAppliesRangeOnlyWhenValidatorMatches() throws IOException {
+        MockHttpServletResponse full = download(request());
+        String etag = full.getHeader(HttpHeaders.ETAG);
+        String lastModified = full.getHeader(HttpHeaders.LAST_MODIFIED);
+        assertThat(etag).startsWith("\"");
+        assertThat(lastModified).isNotNull();
+
+        assertPartial(download(ifRange("bytes=0-9", etag)), 0, 9);
+        assertPartial(download(ifRange("bytes=0-9", lastModified)), 0, 9);
+
+        // 校验器不一致、弱 ETag、较早的日期、无法解析的值：忽略 Range 返回完整内容
+        for (String validator : new String[]{"\"other\"", "W/" + etag, "Thu, 01 Jan 1970 00:00:00 GMT", "garbage"}) {
+            MockHttpServletResponse response = download(ifRange("bytes=0-9", validator));
+            assertThat(response.getStatus()).as(validator).isEqualTo(200);
+            assertThat(response.getContentAsByteArray()).as(validator).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void headWithRangeSendsHeadersOnly() throws IOException {
+        MockHttpServletRequest request = ranged("bytes=0-99");
+        request.setMethod("HEAD");
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-99/" + LENGTH);
+        assertThat(response.getContentLengthLong()).isEqualTo(100);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    private void assertPartial(MockHttpServletResponse response, int start, int end) {
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes " + start + "-" + end + "/" + LENGTH);
+        assertThat(response.getContentLengthLong()).isEqualTo(end - start + 1);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, start, end + 1));
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(downloads.download(fileName, request, response)).isTrue();
+        return response;
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/files/download/" + fileName);
+    }
+
+    private MockHttpServletRequest ranged(String range) {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+
+    private MockHttpServletRequest ifRange(String range, String validator) {
+        MockHttpServletRequest request = ranged(range);
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        return request;
+    }
+}
@@ -0,0 +1,64 @@
+// src/test/java/com/djwsj/filemanager/service/FileListCursorTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.FileSortField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分页游标保留排序键和文件名；排序方式不一致或内容无效时拒绝
+ */
+class FileListCursorTest {
+
+    private static final FileRecord LAST = new FileRecord("f1a2b3.txt", "年度报告 Final.txt", 12_345,
+            1_700_000_000_000L, 0, "text/plain", FileCategory.DOCUMENT, "alice");
+
+    @Test
+    void roundTripKeepsSortKeyAndFilename() {
+        for (FileSortField sort : FileSortField.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                String cursor = FileListCursor.encode(sort, ascending, LAST);
+                assertThat(cursor).matches("[A-Za-z0-9_-]+");
+
+                FileRecord decoded = FileListCursor.decode(cursor, sort, ascending);
+                assertThat(decoded.getFilename()).isEqualTo(LAST.getFilename());
+                // 定位记录在当前排序下与原记录相同
+                assertThat(sort.getComparator().compare(decoded, LAST)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void cursorFromAnotherSortOrderIsRejected() {
+        String cursor = FileListCursor.encode(FileSortField.SIZE, true, LAST);
+
+        assertThatThrownBy(() -> FileListCursor.decode(cursor, FileSortField.UPLOAD_TIME, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("排序方式不一致");
+        assertThatThrownBy(() -> FileListCursor.decode(cursor, FileSortField.SIZE, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("排序方式不一致");
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String cursor = FileListCursor.encode(FileSortField.NAME, true, LAST);
+        String truncated = cursor.substring(0, cursor.length() / 2);
+        String wrongVersion = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[]{9, 2, 1});
+
+        assertThatThrownBy(() -> FileListCursor.decode(truncated, FileSortField.NAME, true))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileListCursor.decode(wrongVersion, FileSortField.NAME, true))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileListCursor.decode("not a cursor!", FileSortField.NAME, true))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FileListCursor.decode("", FileSortField.NAME, true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
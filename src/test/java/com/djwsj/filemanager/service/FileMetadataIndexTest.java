@@ -0,0 +1,228 @@
+// src/test/java/com/djwsj/filemanager/service/FileMetadataIndexTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 元数据日志的重放：尾部记录不完整时截断，压缩为快照后重新加载；重建期间的修改不被扫描结果覆盖
+ */
+class FileMetadataIndexTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileMetadataIndex index;
+
+    @AfterEach
+    void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void replaysLogAndTruncatesIncompleteTail() throws IOException {
+        index = open();
+        index.put(record("a.txt", 10));
+        index.put(record("b.txt", 20));
+        index.put(record("c.jpg", 30));
+        index.remove("b.txt");
+        index.close();
+
+        Path log = logPath();
+        long validLength = Files.size(log);
+        // 模拟写入一半时进程退出：长度和校验和已写入，内容只写了几个字节
+        ByteBuffer partial = ByteBuffer.allocate(12).putInt(100).putInt(0x12345678).putInt(0x01020304);
+        Files.write(log, partial.array(), StandardOpenOption.APPEND);
+
+        index = open();
+        assertThat(index.isLoadedFromDisk()).isTrue();
+        assertThat(index.filenames()).containsExactlyInAnyOrder("a.txt", "c.jpg");
+        assertThat(index.get("a.txt").getSize()).isEqualTo(10);
+        assertThat(index.count(FileCategory.IMAGE)).isEqualTo(1);
+        assertThat(index.totalBytes(null)).isEqualTo(40);
+        assertThat(Files.size(log)).isEqualTo(validLength);
+
+        // 截断后追加的记录在下次加载时可以读到
+        index.put(record("d.txt", 40));
+        index.close();
+        index = open();
+        assertThat(index.filenames()).containsExactlyInAnyOrder("a.txt", "c.jpg", "d.txt");
+        assertThat(index.totalBytes(null)).isEqualTo(80);
+    }
+
+    @Test
+    void replaysLogAfterCompaction() throws IOException {
+        index = open();
+        ReflectionTestUtils.setField(index, "compactMinRecords", 1L);
+        for (int i = 0; i < 200; i++) {
+            index.put(record("file-" + i + ".txt", i));
+        }
+        for (int i = 0; i < 200; i++) {
+            if (i % 4 == 0) {
+                index.remove("file-" + i + ".txt");
+            } else {
+                String name = "file-" + i + ".txt";
+                long size = i * 10L;
+                index.update(name, record -> record(name, size));
+            }
+        }
+        long before = Files.size(logPath());
+        index.compactIfNeeded();
+        assertThat(Files.size(logPath())).isLessThan(before);
+
+        // 压缩之后继续追加
+        index.remove("file-1.txt");
+        index.put(record("after.jpg", 7));
+        index.close();
+
+        index = open();
+        assertThat(index.size()).isEqualTo(150);
+        assertThat(index.contains("file-0.txt")).isFalse();
+        assertThat(index.contains("file-1.txt")).isFalse();
+        assertThat(index.get("file-2.txt").getSize()).isEqualTo(20);
+        assertThat(index.get("after.jpg").getSize()).isEqualTo(7);
+        assertThat(index.count(FileCategory.DOCUMENT)).isEqualTo(149);
+        assertThat(index.count(FileCategory.IMAGE)).isEqualTo(1);
+
+        long expectedBytes = 7;
+        for (int i = 2; i < 200; i++) {
+            if (i % 4 != 0) {
+                expectedBytes += i * 10L;
+            }
+        }
+        assertThat(index.totalBytes(null)).isEqualTo(expectedBytes);
+    }
+
+    @Test
+    void writesDuringCompactionSurviveReload() throws Exception {
+        index = open();
+        ReflectionTestUtils.setField(index, "compactMinRecords", 1L);
+        for (int i = 0; i < 20_000; i++) {
+            index.put(record("file-" + i + ".txt", 1));
+            index.put(record("file-" + i + ".txt", 2));
+        }
+
+        // 快照在写锁外写入，期间的修改补写到新日志末尾：压缩的整个过程中持续删除和添加记录
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong written = new AtomicLong();
+        CountDownLatch started = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; !done.get() && i < 20_000; i++) {
+                index.remove("file-" + i + ".txt");
+                index.put(record("late-" + i + ".txt", 3));
+                written.incrementAndGet();
+                started.countDown();
+            }
+        });
+        writer.start();
+        started.await();
+        index.compactIfNeeded();
+        done.set(true);
+        writer.join();
+        index.close();
+
+        long late = written.get();
+        index = open();
+        assertThat(index.size()).isEqualTo(20_000);
+        assertThat(index.contains("file-0.txt")).isFalse();
+        assertThat(index.contains("late-" + (late - 1) + ".txt")).isTrue();
+        assertThat(index.totalBytes(null)).isEqualTo((20_000 - late) * 2 + late * 3);
+    }
+
+    @Test
+    void rebuildKeepsChangesMadeWhileScanning() throws IOException {
+        index = open();
+        index.put(record("kept.txt", 1));
+        index.put(record("gone.txt", 2));
+
+        index.beginRebuild();
+        assertThatThrownBy(index::beginRebuild).isInstanceOf(IllegalStateException.class);
+        // 扫描期间的上传和删除（包括还没有登记到索引的文件）
+        index.put(record("new.txt", 3));
+        index.remove("gone.txt");
+        index.remove("unindexed.txt");
+        int count = index.completeRebuild(List.of(record("kept.txt", 10), record("gone.txt", 2),
+                record("unindexed.txt", 4)));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(index.filenames()).containsExactlyInAnyOrder("kept.txt", "new.txt");
+        assertThat(index.get("kept.txt").getSize()).isEqualTo(10);
+        assertThat(index.totalBytes(null)).isEqualTo(13);
+
+        // 重建结果写入快照
+        index.close();
+        index = open();
+        assertThat(index.filenames()).containsExactlyInAnyOrder("kept.txt", "new.txt");
+    }
+
+    @Test
+    void readersNeverSeePartialIndexDuringRebuild() throws Exception {
+        index = open();
+        List<FileRecord> scanned = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            scanned.add(record("file-" + i + ".txt", 1));
+        }
+        index.replaceAll(scanned);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong smallest = new AtomicLong(Long.MAX_VALUE);
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                smallest.accumulateAndGet(Math.min(index.size(), index.count(null)), Math::min);
+                smallest.accumulateAndGet(index.totalBytes(FileCategory.DOCUMENT), Math::min);
+                if (index.get("file-0.txt") == null) {
+                    smallest.set(-1);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 10; i++) {
+            index.beginRebuild();
+            index.put(record("extra-" + i + ".txt", 1));
+            index.completeRebuild(scanned);
+        }
+        done.set(true);
+        reader.join();
+
+        // 每次重建只保留扫描结果和本次重建期间加入的记录
+        assertThat(smallest.get()).isGreaterThanOrEqualTo(5000);
+        assertThat(index.size()).isEqualTo(5001);
+        assertThat(index.contains("extra-9.txt")).isTrue();
+        index.close();
+        index = open();
+        assertThat(index.size()).isEqualTo(5001);
+    }
+
+    private FileMetadataIndex open() throws IOException {
+        return new FileMetadataIndex(uploadDir.toString());
+    }
+
+    private Path logPath() {
+        return uploadDir.resolve(".index").resolve("metadata.log");
+    }
+
+    private static FileRecord record(String filename, long size) {
+        FileCategory category = filename.endsWith(".jpg") ? FileCategory.IMAGE : FileCategory.DOCUMENT;
+        return new FileRecord(filename, filename, size, size, size, "text/plain", category, "tester");
+    }
+}
@@ -0,0 +1,152 @@
+// src/test/java/com/djwsj/filemanager/service/FileSearchIndexTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileRecord;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 倒排索引在反复增删、覆盖和重新编号之后，编号数组保持升序，搜索结果与逐条比较一致
+ */
+class FileSearchIndexTest {
+
+    private static final String[] WORDS = {"Report", "photo", "invoice", "draft", "final", "backup", "报告"};
+    private static final String[] USERS = {"alice", "bob", "carol", null};
+    private static final String[] EXTENSIONS = {"txt", "jpg", "pdf"};
+    private static final String[] QUERIES = {"report", "photo", "pho", "ph", "ic", "draft 1", "final backup",
+            "12", "alice", "bob report", "报告", ".jpg", "nothing", "PHOTO 7"};
+
+    private final Random random = new Random(7);
+    private final FileSearchIndex index = new FileSearchIndex();
+    private final Map<String, FileRecord> expected = new HashMap<>();
+    private int nextName;
+
+    @Test
+    void postingsStaySortedAcrossAddRemoveAndCompaction() {
+        int compactions = 0;
+        int previousNextId = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int roll = random.nextInt(10);
+            // 记录数保持在几百条，编号空间用完时空编号超过一半，触发重新编号
+            if (expected.size() > 300 ? roll < 6 : roll < 3) {
+                removeRandom();
+            } else if (roll < 5 && !expected.isEmpty()) {
+                replaceRandom();
+            } else {
+                add("f" + nextName++);
+            }
+
+            int nextId = (int) ReflectionTestUtils.getField(index, "nextId");
+            if (nextId < previousNextId) {
+                compactions++;
+                assertPostingsSorted();
+            }
+            previousNextId = nextId;
+            if (step % 2_000 == 0) {
+                assertSearchMatches();
+            }
+        }
+
+        assertThat(compactions).isGreaterThan(1);
+        assertPostingsSorted();
+        assertSearchMatches();
+    }
+
+    @Test
+    void clearDropsAllRecords() {
+        for (int i = 0; i < 50; i++) {
+            add("f" + i);
+        }
+        index.clear();
+        expected.clear();
+        assertSearchMatches();
+        add("again");
+        assertPostingsSorted();
+        assertSearchMatches();
+    }
+
+    private void add(String filename) {
+        String original = WORDS[random.nextInt(WORDS.length)] + "_" + WORDS[random.nextInt(WORDS.length)] + " "
+                + random.nextInt(100) + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+        FileRecord record = new FileRecord(filename, original, random.nextInt(1000), random.nextInt(1_000_000), 0,
+                "application/octet-stream", FileCategory.OTHER, USERS[random.nextInt(USERS.length)]);
+        index.add(record);
+        expected.put(filename, record);
+    }
+
+    private void replaceRandom() {
+        // 同名记录再次加入（更新）时替换原有的编号
+        add(randomFilename());
+    }
+
+    private void removeRandom() {
+        if (expected.isEmpty()) {
+            return;
+        }
+        FileRecord record = expected.remove(randomFilename());
+        index.remove(record);
+    }
+
+    private String randomFilename() {
+        List<String> names = new ArrayList<>(expected.keySet());
+        names.sort(null);
+        return names.get(random.nextInt(names.size()));
+    }
+
+    private void assertSearchMatches() {
+        for (String keywords : QUERIES) {
+            FileSearchQuery query = new FileSearchQuery();
+            query.setKeywords(keywords);
+            FileSearchIndex.Hits hits = index.search(query, 0, Integer.MAX_VALUE / 2);
+
+            Set<String> found = hits.getRecords().stream().map(FileRecord::getFilename).collect(Collectors.toSet());
+            Set<String> matching = expected.values().stream()
+                    .filter(record -> matches(record, keywords))
+                    .map(FileRecord::getFilename)
+                    .collect(Collectors.toSet());
+            assertThat(found).as("搜索 \"%s\"", keywords).isEqualTo(matching);
+            assertThat(hits.getTotal()).isEqualTo(matching.size());
+        }
+    }
+
+    private static boolean matches(FileRecord record, String keywords) {
+        String name = record.getOriginalFilename().toLowerCase(Locale.ROOT);
+        String user = record.getUploadUser() != null ? record.getUploadUser().toLowerCase(Locale.ROOT) : "";
+        for (String term : keywords.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!name.contains(term) && !user.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertPostingsSorted() {
+        Map<Long, Object> postings = (Map<Long, Object>) ReflectionTestUtils.getField(index, "postings");
+        int nextId = (int) ReflectionTestUtils.getField(index, "nextId");
+        for (Object list : postings.values()) {
+            int[] values = (int[]) ReflectionTestUtils.getField(list, "values");
+            int size = (int) ReflectionTestUtils.getField(list, "size");
+            assertThat(size).isPositive();
+            for (int i = 0; i < size; i++) {
+                assertThat(values[i]).isBetween(0, nextId - 1);
+                if (i > 0) {
+                    assertThat(values[i]).isGreaterThan(values[i - 1]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// src/test/java/com/djwsj/filemanager/service/FileStorageServiceTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.entity.FileSearchQuery;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.FileSortField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 启动预热重建索引的同时上传和删除文件，重建结果不能丢失上传或恢复已删除的文件；
+ * 服务方法自行校验分页参数，不依赖控制器的限制
+ */
+class FileStorageServiceTest {
+
+    private static final int EXTERNAL_FILES = 3000;
+    private static final int UPLOADS = 200;
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private FileStorageService service;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 索引建立之前就在存储目录中的文件
+        for (int i = 0; i < EXTERNAL_FILES; i++) {
+            Files.writeString(uploadDir.resolve("external-" + i + ".txt"), "external " + i);
+        }
+        storage = new TestStorage(uploadDir);
+        service = storage.fileStorageService;
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        storage.close();
+    }
+
+    @Test
+    void uploadsAndDeletesRacingWarmupRebuildAreKept() throws Exception {
+        assertThat(storage.metadataIndex.isLoadedFromDisk()).isFalse();
+        List<Path> files = service.listStoredFiles();
+        CountDownLatch start = new CountDownLatch(1);
+        CompletableFuture<Void> warmup = CompletableFuture.runAsync(() -> {
+            await(start);
+            service.reconcileIndex(files, pool, new AtomicLong());
+        });
+
+        Set<String> uploaded = new HashSet<>();
+        Set<String> deleted = new HashSet<>();
+        start.countDown();
+        for (int i = 0; i < UPLOADS; i++) {
+            byte[] content = ("upload " + i).getBytes(StandardCharsets.UTF_8);
+            FileInfo info = service.storeFile(new ByteArrayInputStream(content), "upload-" + i + ".txt",
+                    FileCategory.DOCUMENT, "tester");
+            uploaded.add(info.getFilename());
+            String external = "external-" + (i * EXTERNAL_FILES / UPLOADS) + ".txt";
+            assertThat(service.deleteFile(external)).isTrue();
+            deleted.add(external);
+        }
+        warmup.get(30, TimeUnit.SECONDS);
+
+        Set<String> onDisk = service.listStoredFiles().stream()
+                .map(path -> path.getFileName().toString())
+                .collect(Collectors.toSet());
+        // 每次上传一个、删除一个
+        assertThat(onDisk).hasSize(EXTERNAL_FILES);
+        assertThat(storage.metadataIndex.filenames()).isEqualTo(onDisk);
+        assertThat(storage.metadataIndex.filenames()).containsAll(uploaded).doesNotContainAnyElementsOf(deleted);
+        assertThat(storage.metadataIndex.count(null)).isEqualTo(onDisk.size());
+        assertThat(storage.metadataIndex.isLoadedFromDisk()).isTrue();
+    }
+
+    @Test
+    void searchBeyondResultWindowIsRejected() {
+        FileSearchQuery query = new FileSearchQuery();
+        assertThat(service.searchFiles(query, 9_980, 20).getFiles()).isEmpty();
+        assertThatThrownBy(() -> service.searchFiles(query, 9_990, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.searchFiles(query, Integer.MAX_VALUE - 20, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pageRejectsNonPositiveLimit() {
+        assertThatThrownBy(() -> service.getFiles(null, FileSortField.NAME, true, null, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getFiles(null, FileSortField.NAME, true, null, 0, -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
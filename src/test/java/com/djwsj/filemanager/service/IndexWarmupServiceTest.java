@@ -0,0 +1,55 @@
+// src/test/java/com/djwsj/filemanager/service/IndexWarmupServiceTest.java
+package com.djwsj.filemanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 预热失败时保持未就绪并重试，成功后才标记为预热完成
+ */
+class IndexWarmupServiceTest {
+
+    @Test
+    void failedWarmupStaysNotReadyUntilRetrySucceeds() throws Exception {
+        FileStorageService storage = mock(FileStorageService.class);
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch retry = new CountDownLatch(1);
+        when(storage.listStoredFiles()).thenAnswer(invocation -> {
+            if (failed.getCount() > 0) {
+                failed.countDown();
+                throw new IOException("disk unavailable");
+            }
+            retry.await();
+            return List.<Path>of();
+        });
+        doAnswer(invocation -> null).when(storage).reconcileIndex(any(), any(), any());
+
+        IndexWarmupService warmup = new IndexWarmupService(storage, 2, Duration.ofMillis(10));
+        warmup.start();
+
+        assertThat(failed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(warmup.awaitWarm(Duration.ofMillis(200))).isFalse();
+        assertThat(warmup.isWarm()).isFalse();
+        assertThat(warmup.status().get("lastError")).asString().contains("disk unavailable");
+
+        retry.countDown();
+        assertThat(warmup.awaitWarm(Duration.ofSeconds(5))).isTrue();
+        assertThat(warmup.isFailed()).isFalse();
+        assertThat(warmup.status()).containsEntry("phase", "warm").doesNotContainKey("lastError");
+        verify(storage, times(1)).reconcileIndex(any(), any(), any());
+    }
+}
@@ -0,0 +1,127 @@
+// src/test/java/com/djwsj/filemanager/service/PostProcessingServiceTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.entity.ProcessingJob;
+import com.djwsj.filemanager.enums.FileCategory;
+import com.djwsj.filemanager.enums.ProcessingStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 后处理任务：校验和写入索引、预先生成缩略图、失败后延迟重试
+ */
+class PostProcessingServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private ThumbnailService thumbnails;
+    private PostProcessingService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new TestStorage(uploadDir);
+        thumbnails = new ThumbnailService(storage.fileStorageService, new int[]{64, 256}, 1 << 20);
+        ReflectionTestUtils.setField(thumbnails, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        storage.close();
+    }
+
+    @Test
+    void persistsChecksumAndPregeneratesThumbnail() throws Exception {
+        service = create(List.of(new ChecksumPostProcessor(storage.fileStorageService),
+                new ThumbnailPostProcessor(thumbnails, new int[]{200})), Duration.ofSeconds(5));
+        FileInfo info = storage.fileStorageService.storeFile(new ByteArrayInputStream(image()), "photo.jpg",
+                FileCategory.IMAGE, "tester");
+        assertThat(info.getChecksum()).isNull();
+
+        ProcessingJob job = process(info.getFilename());
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+        String checksum = BlobStore.hash(new ByteArrayInputStream(image()));
+        assertThat(job.getResults()).containsEntry("sha256", checksum).containsEntry("thumbnails", "256");
+        assertThat(storage.metadataIndex.get(info.getFilename()).getChecksum()).isEqualTo(checksum);
+        assertThat(storage.fileStorageService.getFileInfo(info.getFilename()).getChecksum()).isEqualTo(checksum);
+        assertThat(thumbnails.getCacheInfo().get("entries")).isEqualTo(1);
+
+        // 校验和随索引日志持久化
+        storage.close();
+        storage = new TestStorage(uploadDir);
+        assertThat(storage.metadataIndex.get(info.getFilename()).getChecksum()).isEqualTo(checksum);
+    }
+
+    @Test
+    void retriesAfterBackoff() throws Exception {
+        List<Long> attempts = Collections.synchronizedList(new ArrayList<>());
+        FilePostProcessor flaky = (record, file, results) -> {
+            attempts.add(System.nanoTime());
+            if (attempts.size() < 3) {
+                throw new IOException("temporarily unavailable");
+            }
+            results.put("ok", "true");
+        };
+        service = create(List.of(flaky), Duration.ofMillis(200));
+        FileInfo info = storage.fileStorageService.storeFile(
+                new ByteArrayInputStream("text".getBytes(StandardCharsets.UTF_8)), "a.txt", null, "tester");
+
+        ProcessingJob job = process(info.getFilename());
+
+        assertThat(job.getStatus()).isEqualTo(ProcessingStatus.COMPLETED);
+        assertThat(job.getAttempts()).isEqualTo(3);
+        // 第一次重试等待 200ms，第二次 400ms
+        assertThat(Duration.ofNanos(attempts.get(1) - attempts.get(0))).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(Duration.ofNanos(attempts.get(2) - attempts.get(1))).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+    }
+
+    private PostProcessingService create(List<FilePostProcessor> processors, Duration retryDelay) throws IOException {
+        PostProcessingService created = new PostProcessingService(storage.fileStorageService, processors, 1);
+        ReflectionTestUtils.setField(created, "enabled", true);
+        ReflectionTestUtils.setField(created, "maxAttempts", 3);
+        ReflectionTestUtils.setField(created, "retentionHours", 24L);
+        ReflectionTestUtils.setField(created, "retryDelay", retryDelay);
+        return created;
+    }
+
+    private ProcessingJob process(String fileName) throws InterruptedException {
+        service.onFileStored(new FileStoredEvent(fileName));
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        ProcessingJob job = service.getJobForFile(fileName);
+        while (System.nanoTime() < deadline && (job.getStatus() == ProcessingStatus.PENDING
+                || job.getStatus() == ProcessingStatus.RUNNING)) {
+            Thread.sleep(20);
+        }
+        return job;
+    }
+
+    private static byte[] image() throws IOException {
+        BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+// src/test/java/com/djwsj/filemanager/service/TestStorage.java
+package com.djwsj.filemanager.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 不启动 Spring 容器，按默认配置手工组装存储服务（平铺布局，不压缩，不去重）
+ */
+final class TestStorage implements AutoCloseable {
+
+    final FileMetadataIndex metadataIndex;
+    final FileStorageService fileStorageService;
+
+    TestStorage(Path uploadDir) throws IOException {
+        String dir = uploadDir.toString();
+        this.metadataIndex = new FileMetadataIndex(dir);
+        this.fileStorageService = new FileStorageService(dir, 1000, Duration.ZERO, metadataIndex,
+                new BlobStore(dir), new StoragePathStrategy(dir, "flat"), event -> { },
+                new FileMetrics(new SimpleMeterRegistry()),
+                new ExtensionRegistry(new String[]{"txt", "jpg", "png", "pdf", "zip", "bin"}),
+                new ContentTypeDetector(4096, 4));
+        ReflectionTestUtils.setField(fileStorageService, "maxFileSize", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(fileStorageService, "compressedExtensions", Set.of());
+        ReflectionTestUtils.setField(fileStorageService, "maxSearchResultWindow", 10_000);
+    }
+
+    @Override
+    public void close() {
+        metadataIndex.close();
+    }
+}
@@ -0,0 +1,78 @@
+// src/test/java/com/djwsj/filemanager/service/ThumbnailServiceTest.java
+package com.djwsj.filemanager.service;
+
+import com.djwsj.filemanager.entity.FileInfo;
+import com.djwsj.filemanager.enums.FileCategory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 缩略图缓存文件名是定长的 ASCII 哈希，不受原始文件名长度和字符影响
+ */
+class ThumbnailServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private TestStorage storage;
+    private ThumbnailService thumbnails;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new TestStorage(uploadDir);
+        thumbnails = new ThumbnailService(storage.fileStorageService, new int[]{64, 256}, 1 << 20);
+        ReflectionTestUtils.setField(thumbnails, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    void longNameGetsFixedLengthCacheFile() throws IOException {
+        // 存储文件名接近 255 字节，旧的“文件名.尺寸.修改时间.扩展名”缓存文件名会超出长度限制
+        String originalName = "annual \"report\" ".repeat(14) + ".jpg";
+        FileInfo info = storage.fileStorageService.storeFile(new ByteArrayInputStream(image()), originalName,
+                FileCategory.IMAGE, "tester");
+
+        Path thumbnail = thumbnails.getThumbnail(info.getFilename(), 64);
+
+        assertThat(thumbnail).isNotNull();
+        assertThat(thumbnail.getFileName().toString()).matches("[0-9a-f]{40}\\.jpg");
+        assertThat(ImageIO.read(thumbnail.toFile()).getWidth()).isEqualTo(64);
+        // 再次请求命中同一个缓存文件
+        assertThat(thumbnails.getThumbnail(info.getFilename(), 64)).isEqualTo(thumbnail);
+        assertThat(thumbnails.getThumbnail(info.getFilename(), 256)).isNotEqualTo(thumbnail);
+    }
+
+    @Test
+    void cacheKeyChangesWithSourceSizeAndModifiedTime() {
+        String key = ThumbnailService.cacheKey("a.jpg", 64, 100, 1000);
+        assertThat(key).hasSize(40);
+        assertThat(ThumbnailService.cacheKey("年度报告\"封面\".jpg", 64, 100, 1000)).matches("[0-9a-f]{40}");
+        assertThat(ThumbnailService.cacheKey("a.jpg", 64, 100, 1000)).isEqualTo(key);
+        assertThat(ThumbnailService.cacheKey("a.jpg", 64, 101, 1000)).isNotEqualTo(key);
+        assertThat(ThumbnailService.cacheKey("a.jpg", 64, 100, 1001)).isNotEqualTo(key);
+        assertThat(ThumbnailService.cacheKey("a.jpg", 256, 100, 1000)).isNotEqualTo(key);
+    }
+
+    private static byte[] image() throws IOException {
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
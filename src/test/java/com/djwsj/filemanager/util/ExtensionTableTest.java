@@ -0,0 +1,79 @@
+// src/test/java/com/djwsj/filemanager/util/ExtensionTableTest.java
+package com.djwsj.filemanager.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 扩展名查找表：线性探测、忽略大小写、按位置查找
+ */
+class ExtensionTableTest {
+
+    @Test
+    void everyKeyIsFoundDespiteSlotCollisions() {
+        // 200 个扩展名放进 512 个槽位，必然有槽位冲突需要探测
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            entries.put("e" + i, i);
+        }
+        ExtensionTable<Integer> table = ExtensionTable.of(entries);
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(table.get("e" + i)).isEqualTo(i);
+            assertThat(table.contains("e" + i)).isTrue();
+            assertThat(table.get("x" + i)).isNull();
+            assertThat(table.contains("x" + i)).isFalse();
+        }
+        assertThat(table.get("")).isNull();
+        assertThat(table.get(null)).isNull();
+    }
+
+    @Test
+    void lookupIgnoresCase() {
+        ExtensionTable<String> table = ExtensionTable.of(Map.of("PDF", "document", "jpg", "image"));
+
+        assertThat(table.get("pdf")).isEqualTo("document");
+        assertThat(table.get("Pdf")).isEqualTo("document");
+        assertThat(table.get("JPG")).isEqualTo("image");
+        assertThat(table.contains("jPg")).isTrue();
+        assertThat(table.get("jpeg")).isNull();
+    }
+
+    @Test
+    void rangeLookupAndCanonicalExtension() {
+        ExtensionTable<String> table = ExtensionTable.of(Map.of("txt", "text", "gz", "archive"));
+        String name = "Report.2024.TXT";
+        int start = ExtensionTable.extensionStart(name);
+
+        assertThat(start).isEqualTo(12);
+        assertThat(table.get(name, start, name.length())).isEqualTo("text");
+        // 只比较范围内的字符
+        assertThat(table.get(name, 0, 6)).isNull();
+        assertThat(table.get("a.tx", 2, 4)).isNull();
+
+        // 已知扩展名返回表中同一个字符串实例，未知扩展名转为小写
+        String canonical = table.canonical(name, start, name.length());
+        assertThat(canonical).isEqualTo("txt");
+        assertThat(table.extensionOf(name)).isSameAs(canonical);
+        assertThat(table.extensionOf("notes.txt")).isSameAs(canonical);
+        assertThat(table.extensionOf("backup.TAR")).isEqualTo("tar");
+        assertThat(table.extensionOf("data.tar.Gz")).isEqualTo("gz");
+    }
+
+    @Test
+    void namesWithoutExtension() {
+        ExtensionTable<String> table = ExtensionTable.of(Map.of("txt", "text"));
+
+        assertThat(ExtensionTable.extensionStart(null)).isEqualTo(-1);
+        assertThat(ExtensionTable.extensionStart("README")).isEqualTo(-1);
+        assertThat(ExtensionTable.extensionStart(".txt")).isEqualTo(-1);
+        assertThat(ExtensionTable.extensionStart("name.")).isEqualTo(-1);
+        assertThat(table.extensionOf(".txt")).isNull();
+        assertThat(table.extensionOf("name.")).isNull();
+        assertThat(table.extensionOf(null)).isNull();
+    }
+}